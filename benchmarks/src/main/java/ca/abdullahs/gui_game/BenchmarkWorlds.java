@@ -0,0 +1,48 @@
+package ca.abdullahs.gui_game;
+
+import java.util.Random;
+
+/**
+ * Builds worlds filled with a fixed, seeded spread of enemies and projectiles for the benchmarks
+ */
+final class BenchmarkWorlds {
+    private static final long SEED = 42;
+
+    private BenchmarkWorlds() {}
+
+    // A world whose player can't run out of health, with no objects yet
+    static World create(BroadPhase broadPhase) {
+        World world = new World(broadPhase);
+        world.getPlayer().health = Integer.MAX_VALUE;
+        return world;
+    }
+
+    // Tops the world up to the given number of enemies and projectiles, spread over the whole field
+    static void fill(World world, int enemyCount, int projectileCount, Random random) {
+        while (world.getEnemies().size() < enemyCount) {
+            world.getEnemies().add(new EnemyShip(
+                    world.getStore(),
+                    world.getConfig(),
+                    random.nextDouble() * World.WIDTH,
+                    random.nextDouble() * World.HEIGHT,
+                    0,
+                    random.nextBoolean(),
+                    random
+            ));
+        }
+        while (world.getProjectiles().size() < projectileCount) {
+            boolean isPlayer = random.nextBoolean();
+            world.getProjectiles().add(world.getProjectilePool().obtain(
+                    random.nextDouble() * World.WIDTH,
+                    random.nextDouble() * World.HEIGHT,
+                    isPlayer ? 0 : 180,
+                    isPlayer ? 5 : 3.5,
+                    isPlayer
+            ));
+        }
+    }
+
+    static Random random() {
+        return new Random(SEED);
+    }
+}
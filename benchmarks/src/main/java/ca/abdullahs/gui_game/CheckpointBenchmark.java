@@ -0,0 +1,55 @@
+package ca.abdullahs.gui_game;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks saving a world to a checkpoint, putting it back, and forking it, with as many projectiles as enemies
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckpointBenchmark {
+    @Param({"10", "100", "1000"})
+    private int count;
+
+    private World world;
+    private ByteBuffer checkpoint;
+
+    @Setup
+    public void setup() {
+        world = BenchmarkWorlds.create(new UniformGridBroadPhase());
+        BenchmarkWorlds.fill(world, count, count, BenchmarkWorlds.random());
+        checkpoint = Checkpoint.save(world, null);
+    }
+
+    @Benchmark
+    public ByteBuffer save() {
+        return checkpoint = Checkpoint.save(world, checkpoint);
+    }
+
+    @Benchmark
+    public World restore() {
+        Checkpoint.restore(checkpoint.duplicate(), world);
+        return world;
+    }
+
+    @Benchmark
+    public World fork() {
+        return world.fork(new UniformGridBroadPhase());
+    }
+}
@@ -0,0 +1,78 @@
+package ca.abdullahs.gui_game;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the parts of recording a frame with FrameCapture: copying a snapshot's pixels into a buffer,
+ * which is the part done on the FX thread, then converting and encoding them, which the writer threads do
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameCaptureBenchmark {
+    private static final int WIDTH = World.WIDTH;
+    private static final int HEIGHT = World.HEIGHT;
+
+    private WritableImage snapshot;
+    private byte[] buffer;
+    private BufferedImage image;
+    private int[] rgb;
+    private final ByteArrayOutputStream png = new ByteArrayOutputStream();
+
+    @Setup
+    public void setup() {
+        // A black field with a few sprite-sized blocks of colour, about what a frame of the game compresses like
+        snapshot = new WritableImage(WIDTH, HEIGHT);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                boolean block = (x / 40 + y / 40) % 7 == 0 && x % 40 < 24 && y % 40 < 24;
+                snapshot.getPixelWriter().setArgb(x, y, block ? 0xff000000 | x * 31 ^ y * 17 : 0xff000000);
+            }
+        }
+        buffer = new byte[WIDTH * HEIGHT * 4];
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        rgb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        copyPixels();
+        FrameCapture.toRgb(buffer, rgb);
+    }
+
+    @Benchmark
+    public byte[] copyPixels() {
+        snapshot.getPixelReader().getPixels(0, 0, WIDTH, HEIGHT, PixelFormat.getByteBgraPreInstance(),
+                buffer, 0, WIDTH * 4);
+        return buffer;
+    }
+
+    @Benchmark
+    public int[] convert() {
+        FrameCapture.toRgb(buffer, rgb);
+        return rgb;
+    }
+
+    @Benchmark
+    public int encodePng() throws IOException {
+        png.reset();
+        ImageIO.write(image, "png", png);
+        return png.size();
+    }
+}
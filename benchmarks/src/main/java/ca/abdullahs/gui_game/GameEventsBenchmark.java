@@ -0,0 +1,46 @@
+package ca.abdullahs.gui_game;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks publishing an event to a GameEvents ring, and publishing one and reading it back through a cursor
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameEventsBenchmark {
+    private GameEvents events;
+    private GameEvents.Cursor cursor;
+    private long tick;
+
+    @Setup
+    public void setup() {
+        events = new GameEvents(1 << 14);
+        cursor = events.newCursor();
+    }
+
+    @Benchmark
+    public void publish() {
+        events.publish(GameEvents.ENEMY_KILLED, tick++, 400, 300, -1, 0);
+    }
+
+    @Benchmark
+    public int publishAndPoll(Blackhole blackhole) {
+        events.publish(GameEvents.ENEMY_KILLED, tick++, 400, 300, -1, 0);
+        return cursor.poll((type, tick, x, y, player, value) -> blackhole.consume(x));
+    }
+}
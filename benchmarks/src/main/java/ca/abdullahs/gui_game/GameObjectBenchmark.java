@@ -0,0 +1,68 @@
+package ca.abdullahs.gui_game;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the per-object movement and collision response
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameObjectBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    private int count;
+
+    private World world;
+    private List<EnemyShip> enemies;
+
+    @Setup
+    public void setup() {
+        Random random = BenchmarkWorlds.random();
+        world = BenchmarkWorlds.create(new UniformGridBroadPhase());
+        BenchmarkWorlds.fill(world, count, 0, random);
+        enemies = world.getEnemies();
+    }
+
+    // Moves every object one at a time through GameObject.update()
+    @Benchmark
+    public void update() {
+        for (int i = 0; i < enemies.size(); i++) {
+            enemies.get(i).update();
+        }
+    }
+
+    // Moves every object in one pass over the entity arrays
+    @Benchmark
+    public void integrate() {
+        world.getStore().integrate(1);
+    }
+
+    // Bounces each neighbouring pair of enemies off each other, heading them back
+    // towards each other first so every call does the full response
+    @Benchmark
+    public void handleCollision() {
+        for (int i = 0; i + 1 < enemies.size(); i += 2) {
+            EnemyShip e1 = enemies.get(i);
+            EnemyShip e2 = enemies.get(i + 1);
+            e1.setVelocity(e2.getX() - e1.getX(), e2.getY() - e1.getY());
+            e2.setVelocity(0, 0);
+            e1.handleCollision(e2);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ca.abdullahs.gui_game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks appending a session to a SessionLog, and opening a log of many sessions,
+ * which checks its end and reads through every record to find the best
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionLogBenchmark {
+    @Param({"1000000"})
+    private int sessions;
+
+    private Path appendFile;
+    private Path fullFile;
+    private SessionLog log;
+    private final Random random = new Random(1);
+
+    @Setup
+    public void setup() throws IOException {
+        appendFile = Files.createTempFile("sessions", ".log");
+        Files.delete(appendFile);
+        log = new SessionLog(appendFile, 10);
+
+        fullFile = Files.createTempFile("sessions", ".log");
+        Files.delete(fullFile);
+        try (SessionLog full = new SessionLog(fullFile, 10)) {
+            for (int i = 0; i < sessions; i++) {
+                full.append(nextSession());
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        log.close();
+        Files.delete(appendFile);
+        Files.delete(fullFile);
+    }
+
+    private Session nextSession() {
+        return new Session(System.currentTimeMillis(), random.nextLong(), random.nextInt(36_000), 60,
+                random.nextInt(1000) * 100, random.nextInt(1000), random.nextInt(5), Session.BOT);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void append() throws IOException {
+        log.append(nextSession());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long open() throws IOException {
+        try (SessionLog opened = new SessionLog(fullFile, 10)) {
+            return opened.getCount();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ca.abdullahs.gui_game;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the time from launching the game to its first frame on screen, over fresh processes,
+ * e.g. to compare the runtime image built by mvn -P runtime package with and without its class archive.
+ * JMH can't time a cold start, so this launches the game itself with --startup-report --quit-after=0,
+ * and times each run from starting the process to the game reporting its first frame
+ *
+ * Usage: StartupBenchmark [runs] <command that starts the game...>
+ * e.g. StartupBenchmark 10 target/space-invaders/bin/space-invaders
+ *      StartupBenchmark 10 target/space-invaders/bin/java -Xshare:off -m ca.abdullahs.javafx/ca.abdullahs.gui_game.SpaceInvaders
+ */
+public class StartupBenchmark {
+    private static final String REPORT = "first frame after ";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: StartupBenchmark [runs] <command that starts the game...>");
+            System.exit(2);
+        }
+        int runs = Integer.parseInt(args[0]);
+        List<String> command = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
+        command.add("--startup-report");
+        command.add("--quit-after=0");
+
+        double[] millis = new double[runs];
+        for (int run = 0; run < runs; run++) {
+            millis[run] = timeFirstFrame(command);
+            System.out.printf(Locale.ROOT, "run %d: %.0f ms%n", run + 1, millis[run]);
+        }
+
+        Arrays.sort(millis);
+        double mean = Arrays.stream(millis).average().orElse(0);
+        System.out.printf(Locale.ROOT, "time to first frame over %d runs: min %.0f ms, median %.0f ms, mean %.0f ms, max %.0f ms%n",
+                runs, millis[0], millis[runs / 2], mean, millis[runs - 1]);
+    }
+
+    // Starts the game and waits for it to report its first frame, returning how long that took
+    private static double timeFirstFrame(List<String> command) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        double millis = -1;
+        try (BufferedReader out = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (millis < 0 && line.startsWith(REPORT)) {
+                    millis = (System.nanoTime() - start) / 1e6;
+                }
+            }
+        }
+        int exit = process.waitFor();
+        if (millis < 0) {
+            throw new IllegalStateException("The game exited with " + exit + " without showing a frame");
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,53 @@
+package ca.abdullahs.gui_game;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a lockstep step of a VectorEnv of a given number of games, each played by its own GreedyAgent,
+ * including writing the observations the agents act on. Divide by the count for the time per game step
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorEnvBenchmark {
+    @Param({"1", "16", "256"})
+    private int count;
+
+    private VectorEnv env;
+    private Agent[] agents;
+    private int[] actions;
+
+    @Setup
+    public void setup() {
+        env = new VectorEnv(GameConfig.DEFAULT, count, 1, Long.MAX_VALUE);
+        agents = new Agent[count];
+        for (int i = 0; i < count; i++) {
+            agents[i] = new GreedyAgent();
+        }
+        actions = new int[count];
+    }
+
+    @Benchmark
+    public float[] step() {
+        float[] observations = env.getObservations();
+        for (int i = 0; i < count; i++) {
+            actions[i] = agents[i].act(observations, i * Observation.SIZE);
+        }
+        env.step(actions);
+        return env.getRewards();
+    }
+}
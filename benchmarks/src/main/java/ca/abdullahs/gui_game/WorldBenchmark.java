@@ -0,0 +1,72 @@
+package ca.abdullahs.gui_game;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the whole-world collision and cleanup passes, with as many projectiles as enemies
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldBenchmark {
+    // Every this many objects is marked dead before each cleanup pass
+    private static final int DEAD_EVERY = 10;
+
+    @Param({"10", "100", "1000", "10000"})
+    private int count;
+
+    @Param({"grid", "brute"})
+    private String broadPhase;
+
+    private World world;
+    private Random random;
+
+    @Setup
+    public void setup() {
+        random = BenchmarkWorlds.random();
+        world = BenchmarkWorlds.create("grid".equals(broadPhase)
+                ? new UniformGridBroadPhase()
+                : new BruteForceBroadPhase());
+        BenchmarkWorlds.fill(world, count, count, random);
+    }
+
+    // Refills the world and kills off some objects before each cleanup pass, so it has something to remove
+    @State(Scope.Thread)
+    public static class Casualties {
+        @Setup(Level.Invocation)
+        public void killSome(WorldBenchmark benchmark) {
+            World world = benchmark.world;
+            BenchmarkWorlds.fill(world, benchmark.count, benchmark.count, benchmark.random);
+            for (int i = 0; i < benchmark.count; i += DEAD_EVERY) {
+                world.getEnemies().get(i).setAlive(false);
+                world.getProjectiles().get(i).setAlive(false);
+            }
+        }
+    }
+
+    @Benchmark
+    public void checkCollisions() {
+        world.checkCollisions();
+    }
+
+    @Benchmark
+    public void cleanupObjects(Casualties casualties) {
+        world.cleanupObjects();
+    }
+}
@@ -0,0 +1,12 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * Plays the game from an Observation rather than the world itself, so the same agent can be trained
+ * on many games stepped together by a VectorEnv and then play in the window
+ */
+@FunctionalInterface
+public interface Agent {
+    // Returns the PlayerInput flags to use for the next step, given an observation laid out
+    // as Observation describes from the offset
+    int act(float[] observation, int offset);
+}
@@ -0,0 +1,20 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * Lets an Agent play the first player wherever a PlayerController is expected,
+ * such as in place of the keyboard or in BatchRunner
+ */
+public class AgentController implements PlayerController {
+    private final Agent agent;
+    private final Observation observation = new Observation();
+    private final float[] buffer = new float[Observation.SIZE];
+
+    public AgentController(Agent agent) {
+        this.agent = agent;
+    }
+
+    @Override public int decide(World world) {
+        observation.write(world, 0, buffer, 0);
+        return agent.act(buffer, 0);
+    }
+}
@@ -0,0 +1,270 @@
+package ca.abdullahs.gui_game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Plays many headless games in parallel over a grid of difficulty settings,
+ * and prints survival time, kills and damage statistics for each setting as CSV
+ *
+ * Usage: BatchRunner [--spawn=2.0,1.5] [--speed=1.0] [--variance=30] [--cooldown=1.0] [--cap=150]
+ *                    [--waves=<wave script file>] [--games=1000] [--player=bot|agent|idle] [--threads=n] [--max-seconds=600] [--seed=n]
+ *                    [--checkpoint=<checkpoint file>] [--sessions=<session log file>]
+ * where each setting takes a comma-separated list of values and every combination is played.
+ * The agent player is GreedyAgent, playing from observations rather than the world.
+ * Given a checkpoint, every game instead carries on from it with the checkpoint's settings,
+ * each with its own random numbers from there on.
+ * Given a session log, every game's outcome is also appended to it
+ */
+public class BatchRunner {
+    private final int threads;
+    // Simulated seconds a game may last before it's counted as timed out
+    private final double maxSeconds;
+    private final long baseSeed;
+    private final Supplier<PlayerController> players;
+    // The moment every game starts from, or null to start them from the beginning
+    private ByteBuffer checkpoint;
+    // Where every game's outcome is kept, played by the given kind of player, or null to keep none
+    private SessionLog sessions;
+    private int sessionPlayer;
+
+    public BatchRunner(int threads, double maxSeconds, long baseSeed, Supplier<PlayerController> players) {
+        this.threads = threads;
+        this.maxSeconds = maxSeconds;
+        this.baseSeed = baseSeed;
+        this.players = players;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+
+        // Build every combination of the settings asked for
+        GameConfig defaults = GameConfig.DEFAULT;
+        if (options.containsKey("waves")) {
+            defaults = defaults.withWaves(WaveScript.parse(Files.readString(Path.of(options.get("waves")))));
+        }
+        List<GameConfig> grid = new ArrayList<>();
+        ByteBuffer checkpoint = null;
+        if (options.containsKey("checkpoint")) {
+            checkpoint = Checkpoint.read(Path.of(options.get("checkpoint")));
+            grid.add(Checkpoint.restore(checkpoint.duplicate(), new UniformGridBroadPhase()).getConfig());
+        } else {
+            for (double spawn : values(options, "spawn", defaults.getInitialSpawnInterval())) {
+                for (double speed : values(options, "speed", defaults.getEnemyBaseSpeed())) {
+                    for (double variance : values(options, "variance", defaults.getEnemyAngleVariance())) {
+                        for (double cooldown : values(options, "cooldown", defaults.getEnemyShotCooldown() / 1e9)) {
+                            for (double cap : values(options, "cap", defaults.getMaxLiveEntities())) {
+                                grid.add(defaults.withInitialSpawnInterval(spawn)
+                                        .withEnemyBaseSpeed(speed)
+                                        .withEnemyAngleVariance(variance)
+                                        .withEnemyShotCooldown((long) (cooldown * 1e9))
+                                        .withMaxLiveEntities((int) cap));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        int games = Integer.parseInt(options.getOrDefault("games", "1000"));
+        String player = options.getOrDefault("player", "bot");
+        Supplier<PlayerController> players;
+        int sessionPlayer;
+        switch (player) {
+            case "bot": players = ScriptedBot::new; sessionPlayer = Session.BOT; break;
+            case "agent": players = () -> new AgentController(new GreedyAgent()); sessionPlayer = Session.AGENT; break;
+            case "idle": players = () -> world -> 0; sessionPlayer = Session.IDLE; break;
+            default: throw new IllegalArgumentException("Unknown player " + player);
+        }
+        BatchRunner runner = new BatchRunner(
+                Integer.parseInt(options.getOrDefault("threads",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                Double.parseDouble(options.getOrDefault("max-seconds", "600")),
+                Long.parseLong(options.getOrDefault("seed", "1")),
+                players
+        );
+        runner.setCheckpoint(checkpoint);
+        SessionLog sessions = options.containsKey("sessions") ? new SessionLog(Path.of(options.get("sessions")), 10) : null;
+        runner.setSessionLog(sessions, sessionPlayer);
+
+        long start = System.nanoTime();
+        Stats[] results;
+        try {
+            results = runner.run(grid, games);
+        } finally {
+            if (sessions != null) {
+                sessions.close();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("spawn_interval,enemy_speed,angle_variance,shot_cooldown,entity_cap,games,"
+                + "survival_mean_s,survival_sd_s,survival_min_s,survival_max_s,kills_mean,kills_sd,damage_mean,timed_out");
+        for (int i = 0; i < grid.size(); i++) {
+            GameConfig config = grid.get(i);
+            Stats stats = results[i];
+            double tickSeconds = 1.0 / config.getTickRate();
+            System.out.printf(Locale.ROOT, "%s,%s,%s,%s,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.3f,%d%n",
+                    config.getInitialSpawnInterval(), config.getEnemyBaseSpeed(), config.getEnemyAngleVariance(),
+                    config.getEnemyShotCooldown() / 1e9, config.getMaxLiveEntities(), stats.games,
+                    stats.ticks.mean() * tickSeconds, stats.ticks.standardDeviation() * tickSeconds,
+                    stats.minTicks * tickSeconds, stats.maxTicks * tickSeconds,
+                    stats.kills.mean(), stats.kills.standardDeviation(), stats.damage.mean(), stats.timedOut);
+        }
+        System.err.printf(Locale.ROOT, "%,d games in %.1f s (%,.0f games/s) on %d threads%n",
+                (long) grid.size() * games, seconds, grid.size() * games / seconds, runner.threads);
+    }
+
+    public void setCheckpoint(ByteBuffer checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public void setSessionLog(SessionLog sessions, int player) {
+        this.sessions = sessions;
+        this.sessionPlayer = player;
+    }
+
+    // Parses a comma-separated list of values for a setting, or just the default if it wasn't given
+    private static double[] values(Map<String, String> options, String name, double defaultValue) {
+        String list = options.get(name);
+        if (list == null) return new double[] {defaultValue};
+        return java.util.Arrays.stream(list.split(",")).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    // Plays the given number of games with each setting, returning the statistics for each in order.
+    // Every game has its own seed, so the results are the same however the games are split across threads
+    public Stats[] run(List<GameConfig> grid, int gamesPerConfig) {
+        int total = grid.size() * gamesPerConfig;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> IntStream.range(0, total).parallel().collect(
+                    () -> newStats(grid.size()),
+                    (stats, game) -> {
+                        int config = game / gamesPerConfig;
+                        play(grid.get(config), baseSeed + game, stats[config]);
+                    },
+                    (a, b) -> {
+                        for (int i = 0; i < a.length; i++) {
+                            a[i].merge(b[i]);
+                        }
+                    }
+            )).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Plays one game to the end, or until it runs out of time, and adds its outcome to the statistics
+    private void play(GameConfig config, long seed, Stats stats) {
+        World world = new World(config, new UniformGridBroadPhase(), seed);
+        if (checkpoint != null) {
+            Checkpoint.restore(checkpoint.duplicate(), world);
+            world.reseed(seed);
+        }
+        PlayerController player = players.get();
+        long maxTicks = (long) (maxSeconds * world.getConfig().getTickRate());
+        while (!world.isGameOver() && world.getTick() < maxTicks) {
+            world.setInput(player.decide(world));
+            world.step();
+        }
+        stats.add(world.getTick(), world.getKills(), world.getDamageTaken(), !world.isGameOver());
+        if (sessions != null) {
+            try {
+                sessions.append(Session.of(world, sessionPlayer));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static Stats[] newStats(int count) {
+        Stats[] stats = new Stats[count];
+        for (int i = 0; i < count; i++) {
+            stats[i] = new Stats();
+        }
+        return stats;
+    }
+
+    /**
+     * The combined outcome of a set of games, kept in whole numbers so merging in any order gives the same result
+     */
+    public static class Stats {
+        long games;
+        long timedOut;
+        long minTicks = Long.MAX_VALUE;
+        long maxTicks;
+        final Moments ticks = new Moments();
+        final Moments kills = new Moments();
+        final Moments damage = new Moments();
+
+        void add(long gameTicks, int gameKills, int gameDamage, boolean gameTimedOut) {
+            games++;
+            if (gameTimedOut) timedOut++;
+            minTicks = Math.min(minTicks, gameTicks);
+            maxTicks = Math.max(maxTicks, gameTicks);
+            ticks.add(gameTicks);
+            kills.add(gameKills);
+            damage.add(gameDamage);
+        }
+
+        void merge(Stats other) {
+            games += other.games;
+            timedOut += other.timedOut;
+            minTicks = Math.min(minTicks, other.minTicks);
+            maxTicks = Math.max(maxTicks, other.maxTicks);
+            ticks.merge(other.ticks);
+            kills.merge(other.kills);
+            damage.merge(other.damage);
+        }
+
+        public long getGames() { return games; }
+        public long getTimedOut() { return timedOut; }
+        public double getMeanTicks() { return ticks.mean(); }
+        public double getMeanKills() { return kills.mean(); }
+        public double getMeanDamage() { return damage.mean(); }
+    }
+
+    // The count, sum and sum of squares of a whole-number quantity
+    static class Moments {
+        long count;
+        long sum;
+        long sumOfSquares;
+
+        void add(long value) {
+            count++;
+            sum += value;
+            sumOfSquares += value * value;
+        }
+
+        void merge(Moments other) {
+            count += other.count;
+            sum += other.sum;
+            sumOfSquares += other.sumOfSquares;
+        }
+
+        double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        double standardDeviation() {
+            if (count < 2) return 0;
+            double mean = mean();
+            return Math.sqrt(Math.max(0, ((double) sumOfSquares - count * mean * mean) / (count - 1)));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ca.abdullahs.gui_game;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads back the values packed by a BitWriter, in the same order they were written
+ */
+public class BitReader {
+    private final byte[] bytes;
+    private int limit;
+    private int position;
+
+    public BitReader(int capacity) {
+        bytes = new byte[capacity];
+    }
+
+    // Takes a copy of the packet between the buffer's position and limit and reads from its start
+    public void load(ByteBuffer packet) {
+        limit = Math.min(packet.remaining(), bytes.length) * 8;
+        packet.get(bytes, 0, limit / 8);
+        position = 0;
+    }
+
+    // Reads an unsigned value of up to 32 bits
+    public int read(int bits) {
+        if (position + bits > limit) {
+            throw new IllegalArgumentException("Packet ends after " + limit / 8 + " bytes");
+        }
+
+        int value = 0;
+        int remaining = bits;
+        while (remaining > 0) {
+            int offset = position & 7;
+            int take = Math.min(8 - offset, remaining);
+            int chunk = (bytes[position >>> 3] >>> (8 - offset - take)) & ((1 << take) - 1);
+            value = (value << take) | chunk;
+            position += take;
+            remaining -= take;
+        }
+        return value;
+    }
+
+    // Reads a value written as the low bits of a signed number
+    public int readSigned(int bits) {
+        int value = read(bits);
+        return (value << (32 - bits)) >> (32 - bits);
+    }
+
+    public boolean readBoolean() {
+        return read(1) != 0;
+    }
+
+    public int readVarInt() {
+        int value = 0;
+        boolean more = true;
+        for (int group = 0; more; group++) {
+            if (group == 8) {
+                throw new IllegalArgumentException("Variable length number is too long");
+            }
+            value = (value << 4) | read(4);
+            more = readBoolean();
+        }
+        return value;
+    }
+
+    // How many bits are left to read, including any padding at the end
+    public int getRemainingBits() { return limit - position; }
+}
@@ -0,0 +1,78 @@
+package ca.abdullahs.gui_game;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs values into a byte array using only as many bits as each one needs, most significant bit first.
+ * The writer can be rewound to an earlier position, so a record that doesn't fit can be taken back
+ */
+public class BitWriter {
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private int position;
+
+    public BitWriter(int capacity) {
+        bytes = new byte[capacity];
+        buffer = ByteBuffer.wrap(bytes);
+    }
+
+    // Starts a new packet
+    public void reset() {
+        position = 0;
+    }
+
+    // Writes the low bits of the value, up to 32 of them
+    public void write(int value, int bits) {
+        if (position + bits > bytes.length * 8) {
+            throw new IllegalStateException("Packet is over " + bytes.length + " bytes");
+        }
+
+        int remaining = bits;
+        while (remaining > 0) {
+            int index = position >>> 3;
+            int offset = position & 7;
+            int take = Math.min(8 - offset, remaining);
+            int shift = 8 - offset - take;
+            int mask = ((1 << take) - 1) << shift;
+            int chunk = (value >>> (remaining - take)) & ((1 << take) - 1);
+            bytes[index] = (byte) ((bytes[index] & ~mask) | (chunk << shift));
+            position += take;
+            remaining -= take;
+        }
+    }
+
+    public void writeBoolean(boolean value) {
+        write(value ? 1 : 0, 1);
+    }
+
+    // Writes an unsigned value in groups of 4 bits, each followed by whether another group comes after,
+    // so small values take 5 bits
+    public void writeVarInt(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        int groups = 1;
+        while (groups < 8 && value >>> (4 * groups) != 0) {
+            groups++;
+        }
+        for (int group = groups - 1; group >= 0; group--) {
+            write(value >>> (4 * group), 4);
+            writeBoolean(group > 0);
+        }
+    }
+
+    // How many bits have been written, which rewind can go back to
+    public int getBitPosition() { return position; }
+
+    public void rewind(int bitPosition) {
+        position = bitPosition;
+    }
+
+    // The bytes written so far, with the last one padded out
+    public int getByteCount() { return (position + 7) >>> 3; }
+
+    // The packet written so far, ready to send; the buffer is reused by the next packet
+    public ByteBuffer toBuffer() {
+        return buffer.clear().limit(getByteCount());
+    }
+}
@@ -0,0 +1,56 @@
+package ca.abdullahs.gui_game;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Finds the objects that might be colliding, so only those need an exact collision test
+ */
+public interface BroadPhase {
+    // Indexes the objects by their current bounds
+    void build(List<? extends GameObject> objects);
+
+    // Visits each pair of indexed objects that may overlap once, as list indices i < j.
+    // The order is up to the broad-phase but must be the same for the same objects
+    void forEachPair(PairVisitor visitor);
+
+    // The number of regions the pairs are split into, which can be visited on separate threads
+    default int getRegionCount() {
+        return 1;
+    }
+
+    // Visits the pairs of one region. Visiting every region in order visits the same pairs
+    // in the same order as forEachPair, and regions can be visited at the same time
+    default void forEachPairInRegion(int region, PairVisitor visitor) {
+        forEachPair(visitor);
+    }
+
+    // Visits the list index of each indexed object that may overlap the given box once
+    void forEachInBox(double minX, double minY, double maxX, double maxY, IntConsumer visitor);
+
+    // Visits the list index of each indexed object that may overlap the given object once
+    default void forEachNear(GameObject object, IntConsumer visitor) {
+        double halfWidth = object.getHalfExtentX();
+        double halfHeight = object.getHalfExtentY();
+        forEachInBox(object.getX() - halfWidth, object.getY() - halfHeight,
+                object.getX() + halfWidth, object.getY() + halfHeight, visitor);
+    }
+
+    // Visits the list index of each indexed object that may overlap the given object
+    // anywhere along the path it moved over in the last step once
+    default void forEachNearPath(GameObject object, IntConsumer visitor) {
+        double halfWidth = object.getHalfExtentX();
+        double halfHeight = object.getHalfExtentY();
+        forEachInBox(Math.min(object.getPreviousX(), object.getX()) - halfWidth,
+                Math.min(object.getPreviousY(), object.getY()) - halfHeight,
+                Math.max(object.getPreviousX(), object.getX()) + halfWidth,
+                Math.max(object.getPreviousY(), object.getY()) + halfHeight,
+                visitor);
+    }
+
+    // Receives a pair of list indices
+    @FunctionalInterface
+    interface PairVisitor {
+        void visit(int i, int j);
+    }
+}
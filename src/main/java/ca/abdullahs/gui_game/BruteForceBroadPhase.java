@@ -0,0 +1,52 @@
+package ca.abdullahs.gui_game;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A broad-phase that pairs every object with every other object
+ */
+public class BruteForceBroadPhase implements BroadPhase {
+    // The pairs are split by their first object into this many regions
+    private static final int REGIONS = 16;
+
+    private List<? extends GameObject> objects;
+
+    @Override public void build(List<? extends GameObject> objects) {
+        this.objects = objects;
+    }
+
+    @Override public void forEachPair(PairVisitor visitor) {
+        visitPairs(0, objects.size(), visitor);
+    }
+
+    @Override public int getRegionCount() {
+        return REGIONS;
+    }
+
+    // Later objects have fewer pairs, so each region gets an even share of the pairs rather than of the objects
+    @Override public void forEachPairInRegion(int region, PairVisitor visitor) {
+        visitPairs(regionStart(region), regionStart(region + 1), visitor);
+    }
+
+    // The first object in a region, where region r starts once r/REGIONS of the pairs have gone
+    private int regionStart(int region) {
+        int count = objects.size();
+        if (region >= REGIONS) return count;
+        return (int) Math.round(count * (1 - Math.sqrt(1 - (double) region / REGIONS)));
+    }
+
+    private void visitPairs(int from, int to, PairVisitor visitor) {
+        for (int i = from; i < to; i++) {
+            for (int j = i + 1; j < objects.size(); j++) {
+                visitor.visit(i, j);
+            }
+        }
+    }
+
+    @Override public void forEachInBox(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+        for (int i = 0; i < objects.size(); i++) {
+            visitor.accept(i);
+        }
+    }
+}
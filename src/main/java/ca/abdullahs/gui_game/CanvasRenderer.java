@@ -0,0 +1,65 @@
+package ca.abdullahs.gui_game;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Pane;
+
+/**
+ * Draws every game object onto a single Canvas, so the scene graph doesn't change as objects come and go
+ */
+public class CanvasRenderer implements Renderer {
+    private final Pane root;
+    private final Canvas canvas;
+    private final GraphicsContext graphics;
+    private final SpriteAtlas atlas;
+
+    public CanvasRenderer(Pane root) {
+        this(root, Sprites.separate());
+    }
+
+    public CanvasRenderer(Pane root, SpriteAtlas atlas) {
+        this.root = root;
+        this.atlas = atlas;
+        canvas = new Canvas(World.WIDTH, World.HEIGHT);
+        graphics = canvas.getGraphicsContext2D();
+
+        // Keep the canvas behind the HUD and menus
+        root.getChildren().add(0, canvas);
+    }
+
+    @Override public void render(WorldSnapshot snapshot, double alpha) {
+        clear();
+
+        for (int i = 0; i < snapshot.getCount(); i++) {
+            draw(snapshot, i, alpha);
+        }
+    }
+
+    @Override public void clear() {
+        graphics.setTransform(1, 0, 0, 1, 0, 0);
+        graphics.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+    }
+
+    @Override public void dispose() {
+        root.getChildren().remove(canvas);
+    }
+
+    // Draws the object's sprite centered on its position and turned by its rotation
+    private void draw(WorldSnapshot snapshot, int i, double alpha) {
+        int sprite = snapshot.getSprite(i);
+        Image image = atlas.getImage(sprite);
+        Rectangle2D region = atlas.getRegion(sprite);
+        double width = snapshot.getWidth(i);
+        double height = snapshot.getHeight(i);
+        double radians = Math.toRadians(snapshot.getRenderRotation(i, alpha));
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+
+        // Rotate about the object's position, then draw the sprite around the origin
+        graphics.setTransform(cos, sin, -sin, cos, snapshot.getRenderX(i, alpha), snapshot.getRenderY(i, alpha));
+        graphics.drawImage(image, region.getMinX(), region.getMinY(), region.getWidth(), region.getHeight(),
+                -width/2, -height/2, width, height);
+    }
+}
@@ -0,0 +1,92 @@
+package ca.abdullahs.gui_game;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A headless stress scene that keeps the field full of enemies and projectiles
+ * and reports the collision tests made per frame by each broad-phase,
+ * and with the collision tests split across threads
+ *
+ * Usage: CollisionStress [enemies] [projectiles] [frames] [threads]
+ */
+public class CollisionStress {
+    // Every run fills the field the same way, so their final states can be compared
+    private static final long SEED = 42;
+
+    public static void main(String[] args) {
+        // Well past the objects a step needs before its collision tests are split across threads
+        int enemyCount = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        int projectileCount = args.length > 1 ? Integer.parseInt(args[1]) : 3000;
+        int frames = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%d enemies, %d projectiles, %d frames%n", enemyCount, projectileCount, frames);
+        run("brute force", new BruteForceBroadPhase(), null, enemyCount, projectileCount, frames);
+        World sequential = run("uniform grid", new UniformGridBroadPhase(), null, enemyCount, projectileCount, frames);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        World parallel = run("grid x" + threads, new UniformGridBroadPhase(), pool, enemyCount, projectileCount, frames);
+        pool.shutdown();
+        if (parallel.getParallelCollisionSteps() == 0) {
+            System.out.println("the parallel path did not run, as no step was crowded enough to split");
+        } else {
+            System.out.println(parallel.stateHash() == sequential.stateHash()
+                    ? "parallel run matches the single-threaded run"
+                    : "PARALLEL RUN DIVERGED from the single-threaded run");
+        }
+    }
+
+    // Runs the scene with one broad-phase, splitting the collision tests across the pool if there is one,
+    // prints the average cost of a frame and returns the world as the run left it
+    private static World run(String name, BroadPhase broadPhase, ForkJoinPool pool,
+                            int enemyCount, int projectileCount, int frames) {
+        World world = new World(GameConfig.DEFAULT, broadPhase, SEED);
+        world.setCollisionPool(pool);
+        world.getPlayer().health = Integer.MAX_VALUE; // The player must survive the whole run
+        Random random = new Random(SEED);
+
+        long pairTests = 0;
+        long elapsed = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            refill(world, enemyCount, projectileCount, random);
+
+            long start = System.nanoTime();
+            world.step();
+            elapsed += System.nanoTime() - start;
+            pairTests += world.getPairTests();
+        }
+
+        ProjectilePool projectilePool = world.getProjectilePool();
+        System.out.printf("%-14s %,12d pair tests/frame %10.3f ms/frame  projectile pool %,d hits %,d misses  "
+                        + "kills %,d  state %016x%n",
+                name, pairTests / frames, elapsed / 1e6 / frames, projectilePool.getHits(),
+                projectilePool.getMisses(), world.getKills(), world.stateHash());
+        return world;
+    }
+
+    // Tops the world back up with enemies and projectiles anywhere on the field
+    private static void refill(World world, int enemyCount, int projectileCount, Random random) {
+        while (world.getEnemies().size() < enemyCount) {
+            world.getEnemies().add(new EnemyShip(
+                    world.getStore(),
+                    world.getConfig(),
+                    random.nextDouble() * World.WIDTH,
+                    random.nextDouble() * World.HEIGHT,
+                    0,
+                    random.nextBoolean(),
+                    random
+            ));
+        }
+        while (world.getProjectiles().size() < projectileCount) {
+            boolean isPlayer = random.nextBoolean();
+            world.getProjectiles().add(world.getProjectilePool().obtain(
+                    random.nextDouble() * World.WIDTH,
+                    random.nextDouble() * World.HEIGHT,
+                    isPlayer ? 0 : 180,
+                    isPlayer ? 5 : 3.5,
+                    isPlayer
+            ));
+        }
+    }
+}
@@ -1,62 +1,104 @@
 package ca.abdullahs.gui_game;
 
-import javafx.geometry.Point2D;
-import javafx.scene.image.Image;
+import java.nio.ByteBuffer;
 import java.util.Random;
 
 /**
  * An enemy ship object
  */
 public class EnemyShip extends Ship {
-    private static final double BASE_SPEED = 1.0;
-    private static final double ANGLE_VARIANCE = 30;
-    private static final Random random = new Random();
+    // Number of enemy sprite colours to pick from
+    public static final int COLOURS = 3;
+    // Size of the enemy sprites
+    private static final double SPRITE_WIDTH = 40;
+    private static final double SPRITE_HEIGHT = 32;
 
-    private static Image[] sprites;
+    private int colour;
+    private boolean isShooting;
+    private long shotCooldown;
+    private long nextShotTime;
 
-    // Select a random colour sprite for each enemy ship
-    static {
-        sprites = new Image[3];
-        sprites[0] = new Image("/red.png");
-        sprites[1] = new Image("/green.png");
-        sprites[2] = new Image("/yellow.png");
+    // Creates an enemy with a random colour and heading, where half of them shoot
+    // and they get faster as the game time multiplier goes up
+    public EnemyShip(EntityStore store, GameConfig config, double x, double y, double gameTimeMultiplier,
+                     boolean movingRight, Random random) {
+        this(store, config, x, y, config.getEnemyBaseSpeed() * (1 + gameTimeMultiplier),
+                randomAngle(config, movingRight, random), random.nextInt(COLOURS), random.nextBoolean());
     }
 
-    private boolean isShooting;
-    private long lastShotTime;
-
-    public EnemyShip(double x, double y, double gameTimeMultiplier, boolean movingRight) {
-        super(x, y, BASE_SPEED,
-                sprites[random.nextInt(sprites.length)]); // Random sprite selection
+    // Creates an enemy with everything already decided, e.g. by a SpawnTimeline
+    public EnemyShip(EntityStore store, GameConfig config, double x, double y, double speed, double angle,
+                     int colour, boolean isShooting) {
+        super(store, x, y, speed, SPRITE_WIDTH, SPRITE_HEIGHT);
 
-        speed = BASE_SPEED * (1 + gameTimeMultiplier); // Speed increases with time
+        this.colour = colour;
+        this.isShooting = isShooting;
+        shotCooldown = config.getEnemyShotCooldown();
         health = 1;
-        isShooting = random.nextBoolean(); // 50% chance of being a shooting ship
-
-        // Select a random movement angle between ±60 deg +/- 30 deg
-        double baseAngle = movingRight ? -60 : 60;
-        double angle = baseAngle + (random.nextDouble() * 2 - 1) * ANGLE_VARIANCE;
-        rotation = angle;
+        setRotation(angle);
 
         // Convert angle to velocity vector
         double radians = Math.toRadians(angle);
-        velocity = new Point2D(Math.sin(radians) * speed, Math.cos(radians) * speed);
+        setVelocity(Math.sin(radians) * speed, Math.cos(radians) * speed);
+    }
+
+    private EnemyShip(EntityStore store, int slot, double speed, int colour, boolean isShooting,
+                      long shotCooldown, long nextShotTime) {
+        super(store, slot, speed, 1);
+        this.colour = colour;
+        this.isShooting = isShooting;
+        this.shotCooldown = shotCooldown;
+        this.nextShotTime = nextShotTime;
+    }
+
+    /// Checkpoints: the slot and what the ship carries outside the EntityStore
+    void write(ByteBuffer out) {
+        out.putInt(slot);
+        out.putDouble(speed);
+        out.put((byte) colour);
+        out.put((byte) (isShooting ? 1 : 0));
+        out.putLong(shotCooldown);
+        out.putLong(nextShotTime);
+    }
+
+    static EnemyShip read(EntityStore store, ByteBuffer in) {
+        int slot = store.claimSlot(in.getInt());
+        double speed = in.getDouble();
+        int colour = in.get();
+        if (colour < 0 || colour >= COLOURS) {
+            throw new IllegalArgumentException("Bad enemy colour " + colour);
+        }
+        return new EnemyShip(store, slot, speed, colour, in.get() != 0, in.getLong(), in.getLong());
+    }
+
+    // A random movement angle of ±60 deg, depending on the side, +/- the configured variance
+    private static double randomAngle(GameConfig config, boolean movingRight, Random random) {
+        double baseAngle = movingRight ? -60 : 60;
+        return baseAngle + (random.nextDouble() * 2 - 1) * config.getEnemyAngleVariance();
     }
 
     // Whether the ship is a shooting ship and it has been long enough since the last shot
-    public boolean canShoot() {
-        return isShooting && (System.currentTimeMillis() - lastShotTime) > 1000; // 1 second cooldown
+    public boolean canShoot(long time) {
+        return isShooting && time >= nextShotTime;
     }
 
-    // Record the time of the last shot
-    public void recordShot() {
-        lastShotTime = System.currentTimeMillis();
+    // Record the (simulation) time of the last shot
+    public void recordShot(long time) {
+        nextShotTime = time + shotCooldown;
     }
 
     // Bounce off the wall if the ship has hit the edge of the screen
     public void bounceOffWall(double width) {
-        if (position.getX() <= 0 || position.getX() >= width) {
-            velocity = new Point2D(-velocity.getX(), velocity.getY());
+        if (getX() <= 0 || getX() >= width) {
+            setVelocity(-getVelocityX(), getVelocityY());
         }
     }
-}
\ No newline at end of file
+
+    // Which of the enemy sprite colours this ship uses
+    public int getColour() { return colour; }
+
+    @Override public int getSprite() { return SpriteIds.ENEMY_SPRITE + colour; }
+
+    // Enemy sprites always face down, the rotation is only their heading
+    @Override protected boolean hasRotatingSprite() { return false; }
+}
@@ -0,0 +1,184 @@
+package ca.abdullahs.gui_game;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Stores the state of every game object in parallel primitive arrays,
+ * with each object holding the index of its slot
+ */
+public class EntityStore {
+    private static final int INITIAL_CAPACITY = 256;
+
+    /// Per-slot state, read and written directly by the game objects
+    double[] x;
+    double[] y;
+    double[] vx;
+    double[] vy;
+    double[] rotation;
+    // State at the start of the last step, for interpolating between steps when drawing
+    double[] prevX;
+    double[] prevY;
+    double[] prevRotation;
+    double[] width;
+    double[] height;
+    boolean[] alive;
+
+    // Slots below this index are either in use or free to reuse
+    private int size;
+    private int[] freeSlots;
+    private int freeCount;
+    // The slots held by the free list or by an object restored since the last read, by slot
+    private boolean[] claimed = new boolean[0];
+
+    public EntityStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public EntityStore(int capacity) {
+        x = new double[capacity];
+        y = new double[capacity];
+        vx = new double[capacity];
+        vy = new double[capacity];
+        rotation = new double[capacity];
+        prevX = new double[capacity];
+        prevY = new double[capacity];
+        prevRotation = new double[capacity];
+        width = new double[capacity];
+        height = new double[capacity];
+        alive = new boolean[capacity];
+        freeSlots = new int[capacity];
+    }
+
+    // Claims a slot for a new object, reusing a released one if possible
+    public int allocate() {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (size == x.length) {
+                grow();
+            }
+            slot = size++;
+        }
+
+        x[slot] = 0;
+        y[slot] = 0;
+        vx[slot] = 0;
+        vy[slot] = 0;
+        rotation[slot] = 0;
+        prevX[slot] = 0;
+        prevY[slot] = 0;
+        prevRotation[slot] = 0;
+        width[slot] = 0;
+        height[slot] = 0;
+        alive[slot] = true;
+        return slot;
+    }
+
+    // Gives a slot back once its object has left the world
+    public void release(int slot) {
+        // A released slot keeps no velocity, so integrate() can run over it harmlessly
+        vx[slot] = 0;
+        vy[slot] = 0;
+        alive[slot] = false;
+        freeSlots[freeCount++] = slot;
+    }
+
+    // Keeps every object's position and rotation as they are before a step changes them,
+    // for drawing frames between steps
+    public void savePrevious() {
+        System.arraycopy(x, 0, prevX, 0, size);
+        System.arraycopy(y, 0, prevY, 0, size);
+        System.arraycopy(rotation, 0, prevRotation, 0, size);
+    }
+
+    // Moves every object by its velocity in one pass over the arrays,
+    // where the scale is the length of the step relative to a 60 fps frame
+    public void integrate(double scale) {
+        for (int i = 0; i < size; i++) {
+            x[i] += vx[i] * scale;
+            y[i] += vy[i] * scale;
+        }
+    }
+
+    // The number of objects currently holding a slot
+    public int getCount() {
+        return size - freeCount;
+    }
+
+    /// Checkpoints
+    // Writes every slot below the high-water mark, and the free list, in bulk
+    void write(ByteBuffer out) {
+        out.putInt(size);
+        out.putInt(freeCount);
+        out.asIntBuffer().put(freeSlots, 0, freeCount);
+        out.position(out.position() + freeCount * Integer.BYTES);
+        for (double[] values : new double[][] {x, y, vx, vy, rotation, prevX, prevY, prevRotation, width, height}) {
+            out.asDoubleBuffer().put(values, 0, size);
+            out.position(out.position() + size * Double.BYTES);
+        }
+        for (int i = 0; i < size; i++) {
+            out.put((byte) (alive[i] ? 1 : 0));
+        }
+    }
+
+    // Replaces every slot with the ones written by write
+    void read(ByteBuffer in) {
+        int newSize = in.getInt();
+        int newFreeCount = in.getInt();
+        // Every slot takes more than a byte, so a size past the end of the buffer can't be right
+        if (newSize < 0 || newSize > in.remaining() || newFreeCount < 0 || newFreeCount > newSize) {
+            throw new IllegalArgumentException("Bad entity store header: " + newSize + " slots, " + newFreeCount + " free");
+        }
+        while (x.length < newSize) {
+            grow();
+        }
+        size = newSize;
+        freeCount = newFreeCount;
+        in.asIntBuffer().get(freeSlots, 0, freeCount);
+        in.position(in.position() + freeCount * Integer.BYTES);
+        if (claimed.length < size) {
+            claimed = new boolean[x.length];
+        }
+        Arrays.fill(claimed, 0, size, false);
+        for (int i = 0; i < freeCount; i++) {
+            claimSlot(freeSlots[i]);
+        }
+        for (double[] values : new double[][] {x, y, vx, vy, rotation, prevX, prevY, prevRotation, width, height}) {
+            in.asDoubleBuffer().get(values, 0, size);
+            in.position(in.position() + size * Double.BYTES);
+        }
+        for (int i = 0; i < size; i++) {
+            alive[i] = in.get() != 0;
+        }
+    }
+
+    // Checks a slot read from a checkpoint is one the store holds and that nothing else has claimed it,
+    // neither the free list nor another restored object, and returns it.
+    // The alive flags can't tell, as parked projectiles and dead ships keep their slots with the flag cleared
+    int claimSlot(int slot) {
+        if (slot < 0 || slot >= size || claimed[slot]) {
+            throw new IllegalArgumentException("Bad slot " + slot);
+        }
+        claimed[slot] = true;
+        return slot;
+    }
+
+    // Doubles the capacity of every array
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        prevRotation = Arrays.copyOf(prevRotation, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+}
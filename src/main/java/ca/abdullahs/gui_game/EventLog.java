@@ -0,0 +1,77 @@
+package ca.abdullahs.gui_game;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the events of a GameEvents ring as CSV from a thread of its own, so logging never slows down
+ * the thread publishing them. Events the log fell too far behind to read are counted by getLost
+ *
+ * Format: a header line, then one line per event of the tick, type, x, y, player and value
+ */
+public class EventLog implements Closeable {
+    // How often the thread reads the events published since it last looked
+    private static final long POLL_NANOS = 50_000_000L;
+    private static final String[] TYPE_NAMES = {"", "enemy_killed", "player_hit", "shot_fired", "enemy_escaped", "game_over"};
+
+    private final GameEvents.Cursor cursor;
+    private final BufferedWriter out;
+    private final Thread thread;
+    private volatile boolean running = true;
+    // The first failure to write, which close reports
+    private IOException failure;
+
+    // Logs every event published from now on
+    public EventLog(GameEvents events, Writer out) {
+        cursor = events.newCursor();
+        this.out = new BufferedWriter(out);
+        thread = new Thread(this::run, "event log");
+        thread.setDaemon(true);
+        write("tick,type,x,y,player,value");
+        thread.start();
+    }
+
+    private void run() {
+        while (running) {
+            cursor.poll(this::write);
+            LockSupport.parkNanos(POLL_NANOS);
+        }
+    }
+
+    private void write(int type, long tick, double x, double y, int player, int value) {
+        write(String.format(Locale.ROOT, "%d,%s,%.1f,%.1f,%d,%d", tick, TYPE_NAMES[type], x, y, player, value));
+    }
+
+    private void write(String line) {
+        if (failure != null) return;
+        try {
+            out.write(line);
+            out.newLine();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    // Writes the events left to read and closes the file
+    @Override public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        cursor.poll(this::write);
+        out.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // The events overwritten in the ring before the log got to them
+    public long getLost() { return cursor.getLost(); }
+}
@@ -0,0 +1,85 @@
+package ca.abdullahs.gui_game;
+
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays the explosions for destroyed enemies on a layer of their own,
+ * reusing hidden nodes and advancing every explosion from the game's frame timer
+ */
+public class ExplosionLayer {
+    // How long an explosion stays on screen
+    private static final long LIFETIME_NANOS = 1_250_000_000L;
+    // Marks an explosion that hasn't been shown in a frame yet
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final Pane layer;
+    // Decoded in the background at startup, so it's taken when the first explosion needs it
+    private SpriteAnimation animation;
+    // The explosions on screen, in no particular order so finished ones can be swapped out
+    private final List<Effect> active = new ArrayList<>();
+    // Hidden explosions waiting to be reused
+    private final List<Effect> free = new ArrayList<>();
+
+    // An explosion's node and the frame time it started at
+    private static class Effect {
+        final ImageView node;
+        long start;
+
+        Effect(ImageView node) {
+            this.node = node;
+        }
+    }
+
+    public ExplosionLayer(Pane layer) {
+        this.layer = layer;
+    }
+
+    // Starts an explosion centered on a point, which begins playing from the next frame
+    public void spawn(double x, double y) {
+        if (animation == null) {
+            animation = Sprites.explosion();
+        }
+
+        Effect effect;
+        if (free.isEmpty()) {
+            effect = new Effect(new ImageView());
+            layer.getChildren().add(effect.node);
+        } else {
+            effect = free.remove(free.size() - 1);
+        }
+
+        effect.node.setImage(animation.getFrame(0));
+        effect.node.setX(x - animation.getWidth()/2);
+        effect.node.setY(y - animation.getHeight()/2);
+        effect.node.setVisible(true);
+        effect.start = NOT_STARTED;
+        active.add(effect);
+    }
+
+    // Moves every explosion on to the frame for the given pulse time, hiding the ones that have finished
+    public void update(long now) {
+        for (int i = active.size() - 1; i >= 0; i--) {
+            Effect effect = active.get(i);
+            if (effect.start == NOT_STARTED) {
+                effect.start = now;
+            }
+
+            long elapsed = now - effect.start;
+            if (elapsed >= LIFETIME_NANOS) {
+                effect.node.setVisible(false);
+                // Swap the last explosion into this one's place, so removal doesn't shift the list
+                active.set(i, active.get(active.size() - 1));
+                active.remove(active.size() - 1);
+                free.add(effect);
+            } else {
+                effect.node.setImage(animation.frameAt(elapsed));
+            }
+        }
+    }
+
+    // The number of explosions playing
+    public int getActiveCount() { return active.size(); }
+}
@@ -0,0 +1,47 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * Steps a simulation at a fixed tick rate, however often frames are drawn
+ */
+public class FixedTimestepLoop {
+    private final long tickNanos;
+    private final int maxStepsPerFrame;
+
+    // Time that has passed but not been simulated yet
+    private long accumulator;
+    // The timestamp of the last frame, or -1 before the first one
+    private long lastTime = -1;
+
+    public FixedTimestepLoop(int tickRate, int maxStepsPerFrame) {
+        this.tickNanos = 1_000_000_000L / tickRate;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    // Runs as many steps as the time since the last frame calls for and returns how far through
+    // the next step this frame is (0 to 1), for interpolating what gets drawn
+    public double advance(long now, Runnable step) {
+        if (lastTime >= 0) {
+            accumulator += now - lastTime;
+        }
+        lastTime = now;
+
+        int steps = 0;
+        while (accumulator >= tickNanos) {
+            if (steps == maxStepsPerFrame) {
+                // Too far behind to catch up, so drop the backlog instead of spiralling
+                accumulator %= tickNanos;
+                break;
+            }
+            step.run();
+            accumulator -= tickNanos;
+            steps++;
+        }
+        return (double) accumulator / tickNanos;
+    }
+
+    // Forgets any unsimulated time, e.g. when a new game starts
+    public void reset() {
+        accumulator = 0;
+        lastTime = -1;
+    }
+}
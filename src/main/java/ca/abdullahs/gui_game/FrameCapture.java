@@ -0,0 +1,249 @@
+package ca.abdullahs.gui_game;
+
+import javafx.scene.Scene;
+import javafx.scene.SnapshotResult;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the game as a sequence of PNG files without holding up the frame loop.
+ * The FX thread only asks for a snapshot of the scene, which JavaFX takes along with its next frame,
+ * and copies its pixels into one of a fixed set of buffers. A small pool of worker threads turns the buffers
+ * into PNG files. When every buffer is still waiting to be written the frame is dropped rather than
+ * waited for, so slow disks cost frames of the recording and never frames of the game
+ *
+ * Writes frame-000000.png and so on to the directory, then on close frames.csv with the time of each frame
+ * written, and capture.json with how many frames were captured and dropped, the time the FX thread spent
+ * asking for and copying each frame, and the time to write each file. JavaFX renders the scene a second time
+ * for a snapshot, inside its own pulse where it can't be timed from here, so the time between pulses is
+ * reported separately for pulses that rendered a snapshot and for those that didn't, and the difference
+ * is the whole cost of capturing a frame
+ */
+public class FrameCapture implements Closeable {
+    // How long close waits for the frames still being written
+    private static final long CLOSE_TIMEOUT_SECONDS = 60;
+
+    private final Path directory;
+    private final long intervalNanos;
+    private final BlockingQueue<byte[]> freeBuffers;
+    private final ThreadPoolExecutor writers;
+    // Each writer's image to encode from, of the size of the frames
+    private final ThreadLocal<BufferedImage> writerImages = new ThreadLocal<>();
+
+    /// Used on the FX thread
+    private WritableImage snapshot;
+    private boolean snapshotPending;
+    private long start;
+    private long nextFrame;
+    private long lastPulse;
+    // Frames due at the capture rate, the ones copied for writing, and the ones dropped
+    private long framesDue;
+    private int framesCaptured;
+    private long framesDropped;
+    // The time of each captured frame since recording started
+    private long[] frameTimes = new long[1024];
+    // FX thread time per captured frame: asking for the snapshot plus copying it, recorded once both are done
+    private final Histogram captureNanos = new Histogram();
+    private long requestNanos;
+    // Time between pulses, split by whether the pulse rendered a snapshot
+    private final Histogram captureIntervalNanos = new Histogram();
+    private final Histogram plainIntervalNanos = new Histogram();
+    private boolean snapshotRendered;
+
+    /// Used on the writer threads, guarded by the histogram
+    private final Histogram writeNanos = new Histogram();
+    private final AtomicLong framesWritten = new AtomicLong();
+    private volatile IOException failure;
+
+    // Records at the given frames per second with the given number of writer threads,
+    // dropping frames once the given number of them are waiting to be written
+    public FrameCapture(Path directory, double framesPerSecond, int writerThreads, int buffers) throws IOException {
+        if (framesPerSecond <= 0 || writerThreads <= 0 || buffers <= 0) {
+            throw new IllegalArgumentException("The frame rate, writer threads and buffers must all be positive");
+        }
+        this.directory = Files.createDirectories(directory);
+        intervalNanos = (long) (1e9 / framesPerSecond);
+        freeBuffers = new ArrayBlockingQueue<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            freeBuffers.add(new byte[0]);
+        }
+        writers = new ThreadPoolExecutor(writerThreads, writerThreads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(buffers), runnable -> {
+                    Thread thread = new Thread(runnable, "frame writer");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+    }
+
+    // Called on the FX thread every frame with the pulse's timestamp, after the scene has been updated
+    public void frame(Scene scene, long now) {
+        if (start == 0) {
+            start = now;
+            nextFrame = now;
+        } else {
+            (snapshotRendered ? captureIntervalNanos : plainIntervalNanos).record(now - lastPulse);
+        }
+        lastPulse = now;
+        snapshotRendered = false;
+        if (now < nextFrame) return;
+
+        // Keep to the capture rate, but don't try to make up for a long pause
+        nextFrame = Math.max(nextFrame + intervalNanos, now - intervalNanos);
+        framesDue++;
+        if (snapshotPending || freeBuffers.isEmpty()) {
+            framesDropped++;
+            return;
+        }
+
+        long requestStart = System.nanoTime();
+        snapshotPending = true;
+        long frameTime = now - start;
+        scene.snapshot(result -> copyFrame(result, frameTime), snapshot);
+        requestNanos = System.nanoTime() - requestStart;
+    }
+
+    // Copies a finished snapshot into a free buffer and hands it to the writers
+    private Void copyFrame(SnapshotResult result, long frameTime) {
+        long copyStart = System.nanoTime();
+        snapshotPending = false;
+        snapshotRendered = true;
+        snapshot = result.getImage();
+        byte[] buffer = freeBuffers.poll();
+        if (buffer == null) {
+            framesDropped++;
+            captureNanos.record(requestNanos + System.nanoTime() - copyStart);
+            return null;
+        }
+
+        // The snapshot's own pixel format, so this is a straight copy
+        int width = (int) snapshot.getWidth();
+        int height = (int) snapshot.getHeight();
+        if (buffer.length != width * height * 4) {
+            buffer = new byte[width * height * 4];
+        }
+        snapshot.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getByteBgraPreInstance(),
+                buffer, 0, width * 4);
+
+        int index = framesCaptured;
+        byte[] pixels = buffer;
+        try {
+            writers.execute(() -> write(index, pixels, width, height));
+            if (framesCaptured == frameTimes.length) {
+                frameTimes = Arrays.copyOf(frameTimes, frameTimes.length * 2);
+            }
+            frameTimes[framesCaptured++] = frameTime;
+        } catch (RejectedExecutionException e) {
+            freeBuffers.add(buffer);
+            framesDropped++;
+        }
+        captureNanos.record(requestNanos + System.nanoTime() - copyStart);
+        return null;
+    }
+
+    // Runs on a writer thread: converts the frame for encoding, frees its buffer and writes the file
+    private void write(int index, byte[] pixels, int width, int height) {
+        long writeStart = System.nanoTime();
+        BufferedImage image = writerImages.get();
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            writerImages.set(image);
+        }
+        toRgb(pixels, ((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+        freeBuffers.add(pixels);
+
+        try {
+            ImageIO.write(image, "png", directory.resolve(String.format("frame-%06d.png", index)).toFile());
+            framesWritten.incrementAndGet();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        synchronized (writeNanos) {
+            writeNanos.record(System.nanoTime() - writeStart);
+        }
+    }
+
+    // Converts premultiplied BGRA bytes of an opaque frame into packed RGB
+    static void toRgb(byte[] bgra, int[] rgb) {
+        for (int i = 0, b = 0; i < rgb.length; i++, b += 4) {
+            rgb[i] = (bgra[b + 2] & 0xff) << 16 | (bgra[b + 1] & 0xff) << 8 | bgra[b] & 0xff;
+        }
+    }
+
+    // Lines for the metrics overlay: frames written and dropped, FX thread time per captured frame,
+    // and how much longer pulses that rendered a snapshot took than the rest
+    public String summary() {
+        return String.format(Locale.ROOT, "capture %d written %d dropped%ncapture %.2f ms fx %+.2f ms pulse",
+                framesWritten.get(), framesDropped, captureNanos.mean() / 1e6, pulseOverheadNanos() / 1e6);
+    }
+
+    // The mean time pulses that rendered a snapshot took over the ones that didn't
+    private double pulseOverheadNanos() {
+        if (captureIntervalNanos.getCount() == 0 || plainIntervalNanos.getCount() == 0) return 0;
+        return captureIntervalNanos.mean() - plainIntervalNanos.mean();
+    }
+
+    // Waits for the frames still being written, then writes frames.csv and capture.json. Called on the FX thread
+    @Override public void close() throws IOException {
+        writers.shutdown();
+        try {
+            writers.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(directory.resolve("frames.csv")))) {
+            out.println("frame,time_ms");
+            for (int i = 0; i < framesCaptured; i++) {
+                out.printf(Locale.ROOT, "%d,%.3f%n", i, frameTimes[i] / 1e6);
+            }
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(directory.resolve("capture.json")))) {
+            out.println("{");
+            out.printf(Locale.ROOT, "  \"frames_per_second\": %.3f,%n", 1e9 / intervalNanos);
+            out.printf("  \"frames_due\": %d,%n", framesDue);
+            out.printf("  \"frames_captured\": %d,%n", framesCaptured);
+            out.printf("  \"frames_dropped\": %d,%n", framesDropped);
+            out.printf("  \"frames_written\": %d,%n", framesWritten.get());
+            out.printf("  \"writer_threads\": %d,%n", writers.getMaximumPoolSize());
+            out.printf(Locale.ROOT, "  \"snapshot_pulse_overhead_us\": %.3f,%n", pulseOverheadNanos() / 1e3);
+            out.println("  \"timings_us\": {");
+            writeTiming(out, "capture_on_fx_thread", captureNanos, ",");
+            writeTiming(out, "frame_interval_with_snapshot", captureIntervalNanos, ",");
+            writeTiming(out, "frame_interval_without_snapshot", plainIntervalNanos, ",");
+            synchronized (writeNanos) {
+                writeTiming(out, "write", writeNanos, "");
+            }
+            out.println("  }");
+            out.println("}");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void writeTiming(PrintWriter out, String name, Histogram histogram, String separator) {
+        out.printf(Locale.ROOT, "    \"%s\": {\"count\": %d, \"mean\": %.3f, \"p50\": %.3f, \"p90\": %.3f, "
+                        + "\"p99\": %.3f, \"max\": %.3f}%s%n",
+                name, histogram.getCount(), histogram.mean() / 1e3, histogram.percentile(50) / 1e3,
+                histogram.percentile(90) / 1e3, histogram.percentile(99) / 1e3, histogram.getMax() / 1e3, separator);
+    }
+}
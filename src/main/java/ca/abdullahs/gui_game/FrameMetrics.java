@@ -0,0 +1,174 @@
+package ca.abdullahs.gui_game;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects frame, step and per-phase timings, entity counts and the game thread's allocation rate,
+ * and exports them as CSV or JSON
+ */
+public class FrameMetrics {
+    // How often the allocation rate is worked out
+    private static final long ALLOCATION_SAMPLE_NANOS = 1_000_000_000L;
+
+    /// Timings in nanoseconds, by name in the order they are reported
+    private final Map<String, Histogram> timings = new LinkedHashMap<>();
+    private final Histogram frameInterval = timing("frame interval");
+    private final Histogram frameWork = timing("frame work");
+    private final Histogram step = timing("step");
+    private final Histogram[] phases = new Histogram[StepPhase.values().length];
+
+    /// Entity counts as of the last frame, and the most seen at once
+    private int enemies;
+    private int projectiles;
+    private int peakEnemies;
+    private int peakProjectiles;
+
+    /// Allocation rate of the thread recording frames
+    private final com.sun.management.ThreadMXBean threads = allocationCounter();
+    private long lastAllocatedBytes = -1;
+    private long lastAllocationSample;
+    private double allocationRate = -1; // bytes per second, or -1 if unknown
+
+    // The timestamp of the last frame, or -1 before the first one
+    private long lastFrameTime = -1;
+
+    public FrameMetrics() {
+        for (StepPhase phase : StepPhase.values()) {
+            phases[phase.ordinal()] = timing(phase.getLabel());
+        }
+    }
+
+    private Histogram timing(String name) {
+        Histogram histogram = new Histogram();
+        timings.put(name, histogram);
+        return histogram;
+    }
+
+    // Records a world step that took the given time, along with its phases if the world was profiling
+    public void recordStep(World world, long nanos) {
+        step.record(nanos);
+        if (world.isProfiling()) {
+            for (StepPhase phase : StepPhase.values()) {
+                phases[phase.ordinal()].record(world.getPhaseNanos(phase));
+            }
+        }
+    }
+
+    // Records a step timed on another thread, and its phases if they were measured
+    public void recordStep(WorldSnapshot snapshot) {
+        if (snapshot.getLastStepNanos() < 0) return;
+
+        step.record(snapshot.getLastStepNanos());
+        for (StepPhase phase : StepPhase.values()) {
+            phases[phase.ordinal()].record(snapshot.getPhaseNanos(phase));
+        }
+    }
+
+    // Records a frame at the given timestamp that spent workNanos stepping and rendering
+    public void recordFrame(long now, long workNanos, WorldSnapshot snapshot) {
+        if (lastFrameTime >= 0) {
+            frameInterval.record(now - lastFrameTime);
+        }
+        lastFrameTime = now;
+        frameWork.record(workNanos);
+
+        enemies = snapshot.getEnemyCount();
+        projectiles = snapshot.getProjectileCount();
+        peakEnemies = Math.max(peakEnemies, enemies);
+        peakProjectiles = Math.max(peakProjectiles, projectiles);
+
+        sampleAllocation(now);
+    }
+
+    // Works out the bytes allocated per second by this thread over the last sample period
+    private void sampleAllocation(long now) {
+        if (threads == null) return;
+        if (lastAllocatedBytes >= 0 && now - lastAllocationSample < ALLOCATION_SAMPLE_NANOS) return;
+
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        if (lastAllocatedBytes >= 0) {
+            allocationRate = (allocated - lastAllocatedBytes) * 1e9 / (now - lastAllocationSample);
+        }
+        lastAllocatedBytes = allocated;
+        lastAllocationSample = now;
+    }
+
+    // The JVM's per-thread allocation counter, if it has one
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    // A few lines summarising the metrics, for the on-screen overlay
+    public String summary() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "%-14s %7s %7s %7s%n", "(ms)", "p50", "p99", "max"));
+        timings.forEach((name, histogram) -> text.append(String.format(Locale.ROOT, "%-14s %7.2f %7.2f %7.2f%n",
+                name, histogram.percentile(50) / 1e6, histogram.percentile(99) / 1e6, histogram.getMax() / 1e6)));
+        text.append(String.format(Locale.ROOT, "enemies %d (peak %d)  projectiles %d (peak %d)%n",
+                enemies, peakEnemies, projectiles, peakProjectiles));
+        text.append(allocationRate < 0 ? "allocation n/a"
+                : String.format(Locale.ROOT, "allocation %.1f MB/s", allocationRate / 1e6));
+        return text.toString();
+    }
+
+    // Writes one row per timing, in microseconds, followed by the counts
+    public void writeCsv(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("metric,count,mean_us,p50_us,p90_us,p99_us,p999_us,max_us");
+            timings.forEach((name, histogram) -> out.printf(Locale.ROOT, "%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                    name, histogram.getCount(), histogram.mean() / 1e3,
+                    histogram.percentile(50) / 1e3, histogram.percentile(90) / 1e3,
+                    histogram.percentile(99) / 1e3, histogram.percentile(99.9) / 1e3, histogram.getMax() / 1e3));
+            out.printf(Locale.ROOT, "peak enemies,%d,,,,,,%n", peakEnemies);
+            out.printf(Locale.ROOT, "peak projectiles,%d,,,,,,%n", peakProjectiles);
+            out.printf(Locale.ROOT, "allocation bytes/s,,%.0f,,,,,%n", allocationRate);
+        }
+    }
+
+    // Writes the same metrics as writeCsv as a JSON object
+    public void writeJson(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("{");
+            out.println("  \"timings_us\": {");
+            int i = 0;
+            for (Map.Entry<String, Histogram> entry : timings.entrySet()) {
+                Histogram histogram = entry.getValue();
+                out.printf(Locale.ROOT, "    \"%s\": {\"count\": %d, \"mean\": %.3f, \"p50\": %.3f, \"p90\": %.3f, "
+                                + "\"p99\": %.3f, \"p999\": %.3f, \"max\": %.3f}%s%n",
+                        entry.getKey(), histogram.getCount(), histogram.mean() / 1e3,
+                        histogram.percentile(50) / 1e3, histogram.percentile(90) / 1e3,
+                        histogram.percentile(99) / 1e3, histogram.percentile(99.9) / 1e3, histogram.getMax() / 1e3,
+                        ++i < timings.size() ? "," : "");
+            }
+            out.println("  },");
+            out.printf("  \"peak_enemies\": %d,%n", peakEnemies);
+            out.printf("  \"peak_projectiles\": %d,%n", peakProjectiles);
+            out.printf(Locale.ROOT, "  \"allocation_bytes_per_second\": %.0f%n", allocationRate);
+            out.println("}");
+        }
+    }
+
+    // Clears everything for a new game
+    public void reset() {
+        timings.values().forEach(Histogram::reset);
+        enemies = 0;
+        projectiles = 0;
+        peakEnemies = 0;
+        peakProjectiles = 0;
+        lastFrameTime = -1;
+    }
+}
@@ -0,0 +1,397 @@
+package ca.abdullahs.gui_game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Plays on a GameServer over UDP. The client rebuilds the arena from the server's delta snapshots,
+ * and moves its own ship as soon as a key is pressed by running the inputs the server hasn't applied yet
+ * on a copy of the ship, starting again from where the server says it is whenever a snapshot arrives.
+ * Nothing blocks: poll and step are called from the frame loop, or any other loop.
+ * If the server turns the client away or can't be reached, the client stops and getError says why
+ */
+public class GameClient implements Closeable {
+    // How often JOIN is sent until the server answers
+    private static final long JOIN_RETRY_NANOS = 500_000_000L;
+    // Inputs remembered for replaying, which is as far ahead of the server as the client can predict
+    private static final int PENDING_INPUTS = 64;
+    // Objects moving further than this between snapshots jumped, e.g. a pooled projectile fired again,
+    // so aren't blended across the screen
+    private static final double TELEPORT_DISTANCE = 64;
+    // How far the prediction can be off before it counts as a correction
+    private static final double CORRECTION_DISTANCE = 0.5;
+
+    private final SocketAddress server;
+    private final DatagramChannel channel;
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET_BYTES);
+    private final BitReader in = new BitReader(NetProtocol.MAX_PACKET_BYTES);
+    private final BitWriter out = new BitWriter(NetProtocol.MAX_PACKET_BYTES);
+    // Where the events found in the snapshots are published, or null when nothing reads them
+    private GameEvents events;
+
+    /// Joining
+    private boolean joined;
+    // Why the client stopped, or null while it's playing or still trying to join
+    private String error;
+    private long lastJoinSent;
+    private int player = -1;
+    private int slot = -1;
+    private long stepNanos = World.STEP_NANOS;
+    private double stepScale = 1;
+
+    /// Snapshots
+    // What the client knew after each of the last few snapshots, by tick
+    private final NetState[] history = new NetState[NetProtocol.HISTORY];
+    private final NetState empty = new NetState();
+    // The newest snapshot, and the state before it for blending between the two
+    private NetState latest = empty;
+    private final NetState previous = new NetState();
+    private long latestTick = -1;
+    private boolean gameOver;
+    private int health = PlayerShip.MAX_HEALTH;
+    private int score;
+    private int wave;
+
+    /// Prediction
+    private EntityStore predictionStore;
+    // A copy of the player's ship, or null until the server first sends it
+    private PlayerShip predicted;
+    // The PlayerInput flags held down, with SHOOT cleared once a step has sent it
+    private int input;
+    // The sequence number the next step's input gets
+    private int sequence;
+    // The inputs sent, and where they left the predicted ship, by sequence number
+    private final int[] pendingInputs = new int[PENDING_INPUTS];
+    private final double[] predictedX = new double[PENDING_INPUTS];
+    private final double[] predictedY = new double[PENDING_INPUTS];
+    // The newest input the server has applied, or -1
+    private int lastApplied = -1;
+
+    /// Stats
+    private long snapshotsReceived;
+    private long bytesReceived;
+    private long corrections;
+    private double errorSum;
+    private double maxError;
+    private long errorSamples;
+
+    // Connects to the server; the client joins on its first step
+    public GameClient(SocketAddress server) throws IOException {
+        this.server = server;
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(server);
+        lastJoinSent = System.nanoTime() - JOIN_RETRY_NANOS;
+        for (int i = 0; i < history.length; i++) {
+            history[i] = new NetState();
+        }
+    }
+
+    // Publishes the enemies that disappear on screen, the player losing health and the game ending
+    // to the ring, as they are found in the snapshots
+    public void setEvents(GameEvents events) { this.events = events; }
+
+    // Sets or clears a PlayerInput flag for the coming steps
+    public void setInputFlag(int flag, boolean on) {
+        input = on ? input | flag : input & ~flag;
+    }
+
+    public void setInput(int input) { this.input = input; }
+
+    /// Receiving
+    // Reads every packet that has arrived, returning whether there was a new snapshot among them
+    public boolean poll() throws IOException {
+        if (error != null) return false;
+
+        boolean updated = false;
+        try {
+            while (channel.receive(receiveBuffer.clear()) != null) {
+                int bytes = receiveBuffer.position();
+                in.load(receiveBuffer.flip());
+                try {
+                    int type = in.read(NetProtocol.TYPE_BITS);
+                    if (type == NetProtocol.WELCOME) {
+                        welcome();
+                    } else if (type == NetProtocol.SNAPSHOT && joined) {
+                        updated |= receiveSnapshot(bytes);
+                    } else if (type == NetProtocol.FULL && !joined) {
+                        error = "The server at " + server + " is full";
+                        return updated;
+                    }
+                } catch (IllegalArgumentException e) {
+                    // A malformed packet is dropped like a lost one
+                }
+            }
+        } catch (PortUnreachableException e) {
+            unreachable();
+        }
+        return updated;
+    }
+
+    // Takes the player number and ship the server gave, starting afresh if this is a new game
+    private void welcome() {
+        player = in.readVarInt();
+        slot = in.readVarInt();
+        stepNanos = 1_000_000_000L / in.readVarInt();
+        stepScale = (double) stepNanos / World.STEP_NANOS;
+        joined = true;
+
+        for (NetState state : history) {
+            state.clear();
+        }
+        latest = empty;
+        previous.clear();
+        latestTick = -1;
+        predicted = null;
+        gameOver = false;
+        health = PlayerShip.MAX_HEALTH;
+    }
+
+    // Applies a snapshot to the state it was sent against, returning whether it was new
+    private boolean receiveSnapshot(int bytes) {
+        long tick = Integer.toUnsignedLong(in.read(NetProtocol.TICK_BITS));
+        NetState baseline = empty;
+        if (in.readBoolean()) {
+            long baselineTick = Integer.toUnsignedLong(in.read(NetProtocol.TICK_BITS));
+            baseline = history[(int) (baselineTick % NetProtocol.HISTORY)];
+            // Without the baseline the changes can't be applied, so wait for the next snapshot
+            if (baseline.tick != baselineTick) return false;
+        }
+        // Late snapshots are older than what is shown already
+        if (tick <= latestTick) return false;
+
+        int applied = in.read(NetProtocol.TICK_BITS);
+        boolean newGameOver = in.readBoolean();
+        int newHealth = in.readVarInt();
+        int newScore = in.readVarInt();
+        int newWave = in.readVarInt();
+
+        previous.copyFrom(latest);
+        NetState state = history[(int) (tick % NetProtocol.HISTORY)];
+        state.copyFrom(baseline);
+        try {
+            int changed;
+            while ((changed = state.readRecord(in)) >= 0) {
+                // Enemies that vanish on the screen were destroyed rather than flying off it
+                if (!state.has(changed) && previous.has(changed) && previous.kind[changed] >= SpriteIds.ENEMY_SPRITE
+                        && NetProtocol.dequantizePosition(previous.y[changed]) < World.HEIGHT) {
+                    publish(GameEvents.ENEMY_KILLED, tick, NetProtocol.dequantizePosition(previous.x[changed]),
+                            NetProtocol.dequantizePosition(previous.y[changed]), -1, 0);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Never keep a half-applied snapshot, putting back the newest one if it was being overwritten
+            if (state == latest) {
+                state.copyFrom(previous);
+            } else {
+                state.clear();
+            }
+            throw e;
+        }
+        state.tick = tick;
+        latest = state;
+        latestTick = tick;
+        snapshotsReceived++;
+        bytesReceived += bytes;
+
+        lastApplied = applied;
+        boolean wasGameOver = gameOver;
+        gameOver = newGameOver;
+        int oldHealth = health;
+        health = newHealth;
+        score = newScore;
+        wave = newWave;
+
+        reconcile();
+        if (health < oldHealth) publish(GameEvents.PLAYER_HIT, tick, 0, 0, player, health);
+        if (gameOver && !wasGameOver) publish(GameEvents.GAME_OVER, tick, 0, 0, -1, 0);
+        return true;
+    }
+
+    private void publish(int type, long tick, double x, double y, int player, int value) {
+        if (events != null) {
+            events.publish(type, tick, x, y, player, value);
+        }
+    }
+
+    // Moves the predicted ship to where the server has it, then replays the inputs it hasn't applied yet
+    private void reconcile() {
+        if (!latest.has(slot) || latest.kind[slot] != SpriteIds.PLAYER_SPRITE) {
+            predicted = null;
+            return;
+        }
+        double x = NetProtocol.dequantizePosition(latest.x[slot]);
+        double y = NetProtocol.dequantizePosition(latest.y[slot]);
+        double rotation = NetProtocol.dequantizeRotation(latest.rotation[slot]);
+
+        if (predicted == null) {
+            predictionStore = new EntityStore(1);
+            predicted = new PlayerShip(predictionStore, x, y);
+            predicted.setRotation(rotation);
+            return;
+        }
+
+        // See how far off the prediction for the newest applied input was
+        if (lastApplied >= 0 && sequence - lastApplied <= PENDING_INPUTS) {
+            int i = lastApplied % PENDING_INPUTS;
+            double error = Math.hypot(predictedX[i] - x, predictedY[i] - y);
+            errorSum += error;
+            maxError = Math.max(maxError, error);
+            errorSamples++;
+        }
+
+        double shownX = predicted.getX();
+        double shownY = predicted.getY();
+        predicted.setPosition(x, y);
+        predicted.setRotation(rotation);
+        for (int s = Math.max(lastApplied + 1, sequence - PENDING_INPUTS); s < sequence; s++) {
+            predict(s);
+        }
+        if (Math.hypot(predicted.getX() - shownX, predicted.getY() - shownY) > CORRECTION_DISTANCE) {
+            corrections++;
+        }
+    }
+
+    // Runs one input on the predicted ship the way World.step does
+    private void predict(int sequence) {
+        int i = sequence % PENDING_INPUTS;
+        predictionStore.savePrevious();
+        predicted.applyInput(pendingInputs[i], stepScale);
+        predictionStore.integrate(stepScale);
+        predicted.constrainToScreen();
+        predictedX[i] = predicted.getX();
+        predictedY[i] = predicted.getY();
+    }
+
+    /// Sending
+    // Runs one step at the server's tick rate: joins if the server hasn't answered yet,
+    // otherwise sends this step's input along with the last few and moves the predicted ship by it
+    public void step() throws IOException {
+        if (error != null) return;
+        if (!joined) {
+            long now = System.nanoTime();
+            if (now - lastJoinSent >= JOIN_RETRY_NANOS) {
+                out.reset();
+                out.write(NetProtocol.JOIN, NetProtocol.TYPE_BITS);
+                out.write(NetProtocol.VERSION, NetProtocol.TYPE_BITS);
+                send();
+                lastJoinSent = now;
+            }
+            return;
+        }
+
+        int current = sequence++;
+        pendingInputs[current % PENDING_INPUTS] = input;
+        input &= ~PlayerInput.SHOOT;
+        if (predicted != null && !gameOver) {
+            predict(current);
+        }
+
+        out.reset();
+        out.write(NetProtocol.INPUT, NetProtocol.TYPE_BITS);
+        out.write((int) Math.max(latestTick, 0), NetProtocol.TICK_BITS);
+        int count = Math.min(NetProtocol.INPUT_REDUNDANCY, current + 1);
+        out.write(count, 4);
+        out.write(current, NetProtocol.TICK_BITS);
+        for (int k = 0; k < count; k++) {
+            out.write(pendingInputs[(current - k) % PENDING_INPUTS], NetProtocol.INPUT_BITS);
+        }
+        send();
+    }
+
+    // Sends the packet written to out, stopping if nothing is listening at the server's address
+    private void send() throws IOException {
+        try {
+            channel.write(out.toBuffer());
+        } catch (PortUnreachableException e) {
+            unreachable();
+        }
+    }
+
+    private void unreachable() {
+        error = joined ? "Lost the server at " + server : "No server is running at " + server;
+    }
+
+    // Tells the server the player has left
+    @Override public void close() throws IOException {
+        if (joined && error == null && channel.isOpen()) {
+            out.reset();
+            out.write(NetProtocol.LEAVE, NetProtocol.TYPE_BITS);
+            send();
+        }
+        channel.close();
+    }
+
+    /// Drawing
+    // Fills the snapshot with the arena as of the newest snapshot, with the player's ship where it is predicted to be
+    public void fill(WorldSnapshot snapshot) {
+        snapshot.begin(latestTick, stepNanos, gameOver, health, score, wave);
+        // Players first, then enemies, then projectiles, like a captured snapshot
+        for (int pass = 0; pass < 3; pass++) {
+            for (int s = 0; s < latest.limit; s++) {
+                if (!latest.has(s) || pass != drawPass(latest.kind[s])) continue;
+
+                if (s == slot && predicted != null) {
+                    snapshot.add(s, SpriteIds.PLAYER_SPRITE, predicted.getX(), predicted.getY(),
+                            predicted.getPreviousX(), predicted.getPreviousY(),
+                            predicted.getRenderRotation(1), predicted.getRenderRotation(0),
+                            predicted.getWidth(), predicted.getHeight());
+                } else {
+                    addObject(snapshot, s);
+                }
+                snapshot.countObject(latest.kind[s]);
+            }
+        }
+    }
+
+    private static int drawPass(int kind) {
+        if (kind == SpriteIds.PLAYER_SPRITE) return 0;
+        return kind == SpriteIds.PROJECTILE_SPRITE ? 2 : 1;
+    }
+
+    // Adds an object as of the newest snapshot, blended from where it was in the one before
+    private void addObject(WorldSnapshot snapshot, int s) {
+        double x = NetProtocol.dequantizePosition(latest.x[s]);
+        double y = NetProtocol.dequantizePosition(latest.y[s]);
+        double rotation = NetProtocol.dequantizeRotation(latest.rotation[s]);
+        double prevX = x;
+        double prevY = y;
+        double prevRotation = rotation;
+        if (previous.has(s) && previous.kind[s] == latest.kind[s]) {
+            double oldX = NetProtocol.dequantizePosition(previous.x[s]);
+            double oldY = NetProtocol.dequantizePosition(previous.y[s]);
+            if (Math.hypot(x - oldX, y - oldY) < TELEPORT_DISTANCE) {
+                prevX = oldX;
+                prevY = oldY;
+                // Turn the short way round
+                double turn = rotation - NetProtocol.dequantizeRotation(previous.rotation[s]);
+                prevRotation = rotation - (turn - 360 * Math.round(turn / 360));
+            }
+        }
+        snapshot.add(s, latest.kind[s], x, y, prevX, prevY, rotation, prevRotation,
+                NetProtocol.dequantizeSize(latest.width[s]), NetProtocol.dequantizeSize(latest.height[s]));
+    }
+
+    /// State
+    public boolean isJoined() { return joined; }
+    public int getPlayer() { return player; }
+    public boolean isGameOver() { return gameOver; }
+    public long getTickNanos() { return stepNanos; }
+    // Why the client stopped, e.g. the server is full or can't be reached, or null while it's playing
+    public String getError() { return error; }
+    // The predicted ship, or null if the player's ship isn't in the arena
+    public PlayerShip getPredictedShip() { return predicted; }
+
+    /// Stats
+    public long getSnapshotsReceived() { return snapshotsReceived; }
+    public double getAverageSnapshotBytes() { return snapshotsReceived == 0 ? 0 : (double) bytesReceived / snapshotsReceived; }
+    // How far the predicted ship was from where the server put it, for the same input
+    public double getAveragePredictionError() { return errorSamples == 0 ? 0 : errorSum / errorSamples; }
+    public double getMaxPredictionError() { return maxError; }
+    // Snapshots that moved the shown ship, because the server disagreed with the prediction
+    public long getCorrections() { return corrections; }
+}
@@ -0,0 +1,98 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * The tunable settings of a game: how fast it steps and how hard it is
+ */
+public final class GameConfig {
+    public static final GameConfig DEFAULT = new GameConfig(
+            World.DEFAULT_TICK_RATE,
+            ProjectilePool.DEFAULT_CAPACITY,
+            2.0,
+            1.0,
+            30,
+            1_000_000_000L,
+            150,
+            WaveScript.DEFAULT
+    );
+
+    // Simulation steps per second
+    private final int tickRate;
+    // The most idle projectiles kept for reuse
+    private final int projectilePoolCapacity;
+    // Seconds between enemy spawns in a wave whose interval is 1; wave script intervals are multiples of it
+    private final double initialSpawnInterval;
+    // Enemy speed at the start of a game, per 1/60 of a second
+    private final double enemyBaseSpeed;
+    // How far, in degrees, an enemy's heading may stray from its side's base angle
+    private final double enemyAngleVariance;
+    // Nanoseconds between shots from a shooting enemy
+    private final long enemyShotCooldown;
+    // The most enemies and projectiles in play at once before spawns wait and enemies hold their fire
+    private final int maxLiveEntities;
+    // The enemy waves
+    private final WaveScript waves;
+
+    public GameConfig(int tickRate, int projectilePoolCapacity, double initialSpawnInterval,
+                      double enemyBaseSpeed, double enemyAngleVariance, long enemyShotCooldown,
+                      int maxLiveEntities, WaveScript waves) {
+        this.tickRate = tickRate;
+        this.projectilePoolCapacity = projectilePoolCapacity;
+        this.initialSpawnInterval = initialSpawnInterval;
+        this.enemyBaseSpeed = enemyBaseSpeed;
+        this.enemyAngleVariance = enemyAngleVariance;
+        this.enemyShotCooldown = enemyShotCooldown;
+        this.maxLiveEntities = maxLiveEntities;
+        this.waves = waves;
+    }
+
+    /// Copies with one setting changed
+    public GameConfig withTickRate(int tickRate) {
+        return new GameConfig(tickRate, projectilePoolCapacity, initialSpawnInterval,
+                enemyBaseSpeed, enemyAngleVariance, enemyShotCooldown, maxLiveEntities, waves);
+    }
+
+    public GameConfig withProjectilePoolCapacity(int projectilePoolCapacity) {
+        return new GameConfig(tickRate, projectilePoolCapacity, initialSpawnInterval,
+                enemyBaseSpeed, enemyAngleVariance, enemyShotCooldown, maxLiveEntities, waves);
+    }
+
+    public GameConfig withInitialSpawnInterval(double initialSpawnInterval) {
+        return new GameConfig(tickRate, projectilePoolCapacity, initialSpawnInterval,
+                enemyBaseSpeed, enemyAngleVariance, enemyShotCooldown, maxLiveEntities, waves);
+    }
+
+    public GameConfig withEnemyBaseSpeed(double enemyBaseSpeed) {
+        return new GameConfig(tickRate, projectilePoolCapacity, initialSpawnInterval,
+                enemyBaseSpeed, enemyAngleVariance, enemyShotCooldown, maxLiveEntities, waves);
+    }
+
+    public GameConfig withEnemyAngleVariance(double enemyAngleVariance) {
+        return new GameConfig(tickRate, projectilePoolCapacity, initialSpawnInterval,
+                enemyBaseSpeed, enemyAngleVariance, enemyShotCooldown, maxLiveEntities, waves);
+    }
+
+    public GameConfig withEnemyShotCooldown(long enemyShotCooldown) {
+        return new GameConfig(tickRate, projectilePoolCapacity, initialSpawnInterval,
+                enemyBaseSpeed, enemyAngleVariance, enemyShotCooldown, maxLiveEntities, waves);
+    }
+
+    public GameConfig withMaxLiveEntities(int maxLiveEntities) {
+        return new GameConfig(tickRate, projectilePoolCapacity, initialSpawnInterval,
+                enemyBaseSpeed, enemyAngleVariance, enemyShotCooldown, maxLiveEntities, waves);
+    }
+
+    public GameConfig withWaves(WaveScript waves) {
+        return new GameConfig(tickRate, projectilePoolCapacity, initialSpawnInterval,
+                enemyBaseSpeed, enemyAngleVariance, enemyShotCooldown, maxLiveEntities, waves);
+    }
+
+    // Getters
+    public int getTickRate() { return tickRate; }
+    public int getProjectilePoolCapacity() { return projectilePoolCapacity; }
+    public double getInitialSpawnInterval() { return initialSpawnInterval; }
+    public double getEnemyBaseSpeed() { return enemyBaseSpeed; }
+    public double getEnemyAngleVariance() { return enemyAngleVariance; }
+    public long getEnemyShotCooldown() { return enemyShotCooldown; }
+    public int getMaxLiveEntities() { return maxLiveEntities; }
+    public WaveScript getWaves() { return waves; }
+}
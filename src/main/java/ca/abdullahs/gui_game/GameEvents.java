@@ -0,0 +1,163 @@
+package ca.abdullahs.gui_game;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ring buffer of the events of a game, such as enemies being shot down or players being hit,
+ * which the simulation publishes without allocating and without waiting on anyone.
+ * Each reader, for effects, statistics or logging, has its own Cursor and reads on its own schedule,
+ * on any thread. A reader that falls a whole ring behind loses the oldest events, and its cursor counts them
+ *
+ * Only one thread may publish at a time. Every event is stored in preallocated primitive arrays, and each
+ * slot carries the sequence number of the event in it, which is cleared while the slot is rewritten,
+ * so a reader can tell when an event was overwritten while it was reading it
+ */
+public final class GameEvents {
+    /// Event types, and what the player, value and position mean for each
+    // An enemy was destroyed at its position, shot down (player -1) or by crashing into the player
+    public static final int ENEMY_KILLED = 1;
+    // A player lost health, with the value being the health left
+    public static final int PLAYER_HIT = 2;
+    // A projectile was fired from the position by the player, or -1 for an enemy
+    public static final int SHOT_FIRED = 3;
+    // An enemy flew off the bottom of the world at its position
+    public static final int ENEMY_ESCAPED = 4;
+    // Every player is out of health
+    public static final int GAME_OVER = 5;
+
+    // Marks a slot being written
+    private static final long WRITING = -1;
+    private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int mask;
+    // The sequence number of the event each slot holds
+    private final long[] sequences;
+    private final int[] types;
+    private final long[] ticks;
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] players;
+    private final int[] values;
+    // The sequence number of the next event
+    private final AtomicLong published = new AtomicLong();
+
+    // Holds the given number of events, which is rounded up to a power of two
+    public GameEvents(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        int size = Math.max(Integer.highestOneBit(capacity - 1) << 1, 1);
+        mask = size - 1;
+        sequences = new long[size];
+        Arrays.fill(sequences, WRITING);
+        types = new int[size];
+        ticks = new long[size];
+        xs = new double[size];
+        ys = new double[size];
+        players = new int[size];
+        values = new int[size];
+    }
+
+    /**
+     * Receives an event read through a Cursor
+     */
+    @FunctionalInterface
+    public interface Handler {
+        void onEvent(int type, long tick, double x, double y, int player, int value);
+    }
+
+    // Adds an event, overwriting the oldest once the ring is full
+    public void publish(int type, long tick, double x, double y, int player, int value) {
+        long sequence = published.get();
+        int slot = (int) sequence & mask;
+
+        // Readers check the slot's sequence number on both sides of reading it, so clear it before rewriting
+        SEQUENCES.setOpaque(sequences, slot, WRITING);
+        VarHandle.storeStoreFence();
+        types[slot] = type;
+        ticks[slot] = tick;
+        xs[slot] = x;
+        ys[slot] = y;
+        players[slot] = player;
+        values[slot] = value;
+        SEQUENCES.setRelease(sequences, slot, sequence);
+        published.lazySet(sequence + 1);
+    }
+
+    // The number of events ever published
+    public long getPublished() { return published.get(); }
+    public int getCapacity() { return mask + 1; }
+
+    // A new reader that starts from the next event published
+    public Cursor newCursor() {
+        return new Cursor(published.get());
+    }
+
+    /**
+     * One reader's place in the ring, used from one thread at a time
+     */
+    public final class Cursor {
+        private long next;
+        private long lost;
+
+        private Cursor(long next) {
+            this.next = next;
+        }
+
+        // Hands every event published since the last call to the handler, in order,
+        // returning how many it handled
+        public int poll(Handler handler) {
+            long end = published.get();
+            int handled = 0;
+            while (next < end) {
+                // Skip what has been overwritten since
+                long oldest = end - (mask + 1);
+                if (next < oldest) {
+                    lost += oldest - next;
+                    next = oldest;
+                }
+
+                int slot = (int) next & mask;
+                if ((long) SEQUENCES.getAcquire(sequences, slot) != next) {
+                    end = skipLapped(end);
+                    continue;
+                }
+                int type = types[slot];
+                long tick = ticks[slot];
+                double x = xs[slot];
+                double y = ys[slot];
+                int player = players[slot];
+                int value = values[slot];
+                VarHandle.loadLoadFence();
+                if ((long) SEQUENCES.getOpaque(sequences, slot) != next) {
+                    end = skipLapped(end);
+                    continue;
+                }
+
+                next++;
+                handled++;
+                handler.onEvent(type, tick, x, y, player, value);
+            }
+            return handled;
+        }
+
+        // Catches up after the publisher overwrote the event about to be read, returning the new end
+        private long skipLapped(long end) {
+            long latest = published.get();
+            long oldest = latest - (mask + 1);
+            // The slot may be rewritten for the event after the newest one published, so skip that too
+            long resume = Math.max(next + 1, oldest + 1);
+            lost += resume - next;
+            next = resume;
+            return Math.max(end, latest);
+        }
+
+        // The events this reader missed by falling a whole ring behind
+        public long getLost() { return lost; }
+        // The events published that this reader hasn't read yet
+        public long getBacklog() { return Math.max(0, published.get() - next); }
+    }
+}
@@ -1,44 +1,109 @@
 package ca.abdullahs.gui_game;
 
-import javafx.geometry.Point2D;
-import javafx.scene.image.ImageView;
-
 /**
- * The base class for all game objects
+ * The base class for all game objects, whose state lives in a slot of an EntityStore
  */
 public abstract class GameObject {
-    protected Point2D position;
-    protected Point2D velocity;
-    protected double rotation;
-    protected ImageView imageView;
-    protected boolean alive = true;
-    protected double width;
-    protected double height;
+    protected final EntityStore store;
+    protected final int slot;
+
+    public GameObject(EntityStore store, double x, double y) {
+        this.store = store;
+        slot = store.allocate();
+        store.x[slot] = x;
+        store.y[slot] = y;
+        resetInterpolation();
+    }
 
-    public GameObject(double x, double y) {
-        position = new Point2D(x, y);
-        velocity = new Point2D(0, 0);
-        rotation = 0;
+    // Takes over a slot that already holds the object's state, e.g. one restored from a checkpoint
+    protected GameObject(EntityStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
     }
 
     // Update position based on velocity each frame
     public void update() {
-        setPosition(position.add(velocity));
+        store.x[slot] += store.vx[slot];
+        store.y[slot] += store.vy[slot];
     }
 
     // Checks if the object is colliding with another object
+    // using the axis-aligned bounds of both (rotated) sprites
     public boolean isColliding(GameObject other) {
-        return imageView.getBoundsInParent().intersects(
-                other.getImageView().getBoundsInParent());
+        return Math.abs(getX() - other.getX()) <= getHalfExtentX() + other.getHalfExtentX()
+                && Math.abs(getY() - other.getY()) <= getHalfExtentY() + other.getHalfExtentY();
+    }
+
+    // Checks if the object touched another object at any point during the last step,
+    // so fast objects can't pass through thin ones between steps.
+    // Both objects are taken to move in a straight line from their previous positions
+    public boolean isSweptColliding(GameObject other) {
+        return getSweptHitTime(other) >= 0;
+    }
+
+    // How far through the last step, from 0 to 1, the object first touched another object, or -1 if it didn't
+    public double getSweptHitTime(GameObject other) {
+        // Follow this object's path relative to the other one, so the other stays still at the origin
+        double startX = getPreviousX() - other.getPreviousX();
+        double startY = getPreviousY() - other.getPreviousY();
+        double moveX = getX() - other.getX() - startX;
+        double moveY = getY() - other.getY() - startY;
+
+        // The path hits if it's inside the combined bounds along both axes at once
+        double halfX = getHalfExtentX() + other.getHalfExtentX();
+        double halfY = getHalfExtentY() + other.getHalfExtentY();
+        double enter = 0;
+        double exit = 1;
+        if (moveX == 0) {
+            if (Math.abs(startX) > halfX) return -1;
+        } else {
+            double first = (-halfX - startX) / moveX;
+            double second = (halfX - startX) / moveX;
+            enter = Math.max(enter, Math.min(first, second));
+            exit = Math.min(exit, Math.max(first, second));
+        }
+        if (moveY == 0) {
+            if (Math.abs(startY) > halfY) return -1;
+        } else {
+            double first = (-halfY - startY) / moveY;
+            double second = (halfY - startY) / moveY;
+            enter = Math.max(enter, Math.min(first, second));
+            exit = Math.min(exit, Math.max(first, second));
+        }
+        return enter <= exit ? enter : -1;
+    }
+
+    // Half the width of the axis-aligned box around the rotated sprite
+    protected double getHalfExtentX() {
+        double radians = Math.toRadians(getDisplayRotation());
+        return Math.abs(getWidth()/2 * Math.cos(radians)) + Math.abs(getHeight()/2 * Math.sin(radians));
+    }
+
+    // Half the height of the axis-aligned box around the rotated sprite
+    protected double getHalfExtentY() {
+        double radians = Math.toRadians(getDisplayRotation());
+        return Math.abs(getWidth()/2 * Math.sin(radians)) + Math.abs(getHeight()/2 * Math.cos(radians));
     }
 
     // Handles a collision between this object and another object
     // where the two objects should bounce off each other
     public void handleCollision(GameObject other) {
+        // Calculate the normal vector between the two objects
+        double normalX = other.getX() - getX();
+        double normalY = other.getY() - getY();
+        double distance = Math.sqrt(normalX * normalX + normalY * normalY);
+        if (distance == 0) {
+            normalX = 0;
+            normalY = 0;
+        } else {
+            normalX /= distance;
+            normalY /= distance;
+        }
+
         // Calculate the velocity along the normal vector
-        Point2D normal = other.getPosition().subtract(position).normalize();
-        Point2D relativeVelocity = other.getVelocity().subtract(velocity);
-        double velocityAlongNormal = relativeVelocity.dotProduct(normal);
+        double relativeVelocityX = other.getVelocityX() - getVelocityX();
+        double relativeVelocityY = other.getVelocityY() - getVelocityY();
+        double velocityAlongNormal = relativeVelocityX * normalX + relativeVelocityY * normalY;
 
         // If the object is moving away from the other object, there is no need to bounce
         if (velocityAlongNormal > 0) return;
@@ -47,50 +112,92 @@ public abstract class GameObject {
         // based on reducing the velocity of this object along the normal vector
         double multiplier = 0.5;
         double j = -(1 + multiplier) * velocityAlongNormal;
-        Point2D impulse = normal.multiply(j);
+        double impulseX = normalX * j;
+        double impulseY = normalY * j;
 
-        // Determine the new velocity for both objects
-        Point2D newVelocity = velocity.subtract(impulse);
-        Point2D otherNewVelocity = other.getVelocity().add(impulse);
+        // Set the new velocity for both objects
+        setVelocity(getVelocityX() - impulseX, getVelocityY() - impulseY);
+        other.setVelocity(other.getVelocityX() + impulseX, other.getVelocityY() + impulseY);
 
         // Limit the maximum speed of the objects
         double maxSpeed = 3.0;
-        newVelocity = limitVelocity(newVelocity, maxSpeed);
-        otherNewVelocity = limitVelocity(otherNewVelocity, maxSpeed);
-
-        // Set the new velocities
-        velocity = newVelocity;
-        other.setVelocity(otherNewVelocity);
+        limitVelocity(maxSpeed);
+        other.limitVelocity(maxSpeed);
     }
 
-    // Limits a velocity vector to a maximum speed
-    private Point2D limitVelocity(Point2D vel, double maxSpeed) {
-        double speed = vel.magnitude();
+    // Limits the velocity to a maximum speed
+    private void limitVelocity(double maxSpeed) {
+        double speed = Math.sqrt(getVelocityX() * getVelocityX() + getVelocityY() * getVelocityY());
         if (speed > maxSpeed) {
-            return vel.multiply(maxSpeed / speed);
+            setVelocity(getVelocityX() * (maxSpeed / speed), getVelocityY() * (maxSpeed / speed));
         }
-        return vel;
+    }
+
+    // Makes the object's previous state match its current one,
+    // so it isn't drawn sliding in from wherever its slot was before
+    public void resetInterpolation() {
+        store.prevX[slot] = store.x[slot];
+        store.prevY[slot] = store.y[slot];
+        store.prevRotation[slot] = store.rotation[slot];
+    }
+
+    // Frees the object's slot once it has left the world
+    public void release() {
+        store.release(slot);
     }
 
     // Getters and setters
-    public Point2D getPosition() { return position; }
-    public void setPosition(Point2D position) {
-        this.position = position;
-        imageView.setTranslateX(position.getX() - width/2);
-        imageView.setTranslateY(position.getY() - height/2);
+    public double getX() { return store.x[slot]; }
+    public double getY() { return store.y[slot]; }
+    public void setPosition(double x, double y) {
+        store.x[slot] = x;
+        store.y[slot] = y;
     }
 
-    public Point2D getVelocity() { return velocity; }
-    public void setVelocity(Point2D velocity) { this.velocity = velocity; }
+    // Where the object was before the last step moved it
+    public double getPreviousX() { return store.prevX[slot]; }
+    public double getPreviousY() { return store.prevY[slot]; }
 
-    public double getRotation() { return rotation; }
-    public void setRotation(double rotation) {
-        this.rotation = rotation;
-        imageView.setRotate(rotation);
+    public double getVelocityX() { return store.vx[slot]; }
+    public double getVelocityY() { return store.vy[slot]; }
+    public void setVelocity(double vx, double vy) {
+        store.vx[slot] = vx;
+        store.vy[slot] = vy;
     }
 
-    public ImageView getImageView() { return imageView; }
+    public double getRotation() { return store.rotation[slot]; }
+    public void setRotation(double rotation) { store.rotation[slot] = rotation; }
+
+    // The SpriteIds number of the sprite the object is drawn with
+    public int getSprite() { return SpriteIds.PLAYER_SPRITE; }
+
+    // Whether the sprite is drawn turned by the object's rotation
+    protected boolean hasRotatingSprite() { return true; }
+
+    // The rotation the sprite is drawn with, which is also used for its collision bounds
+    public double getDisplayRotation() { return hasRotatingSprite() ? getRotation() : 0; }
+
+    /// State blended between the last two steps, where alpha is how far through the next step the frame is
+    public double getRenderX(double alpha) {
+        return store.prevX[slot] + (store.x[slot] - store.prevX[slot]) * alpha;
+    }
+
+    public double getRenderY(double alpha) {
+        return store.prevY[slot] + (store.y[slot] - store.prevY[slot]) * alpha;
+    }
+
+    public double getRenderRotation(double alpha) {
+        if (!hasRotatingSprite()) return 0;
+        return store.prevRotation[slot] + (store.rotation[slot] - store.prevRotation[slot]) * alpha;
+    }
+
+    public double getWidth() { return store.width[slot]; }
+    public double getHeight() { return store.height[slot]; }
+    protected void setSize(double width, double height) {
+        store.width[slot] = width;
+        store.height[slot] = height;
+    }
 
-    public boolean isAlive() { return alive; }
-    public void setAlive(boolean alive) { this.alive = alive; }
-}
\ No newline at end of file
+    public boolean isAlive() { return store.alive[slot]; }
+    public void setAlive(boolean alive) { store.alive[slot] = alive; }
+}
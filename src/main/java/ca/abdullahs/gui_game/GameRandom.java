@@ -0,0 +1,35 @@
+package ca.abdullahs.gui_game;
+
+import java.util.Random;
+
+/**
+ * A Random that gives exactly the numbers java.util.Random gives for the same seed,
+ * but whose state can be read and put back, so a checkpoint carries on the same game
+ */
+public class GameRandom extends Random {
+    // The same linear congruential generator as java.util.Random
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // Set by setSeed, which Random's constructor calls
+    private long state;
+
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    @Override public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    // The generator's whole state; the simulation never uses nextGaussian, whose spare value isn't kept
+    public long getState() { return state; }
+    public void setState(long state) { this.state = state & MASK; }
+}
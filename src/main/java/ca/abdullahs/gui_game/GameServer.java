@@ -0,0 +1,505 @@
+package ca.abdullahs.gui_game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the one authoritative world for several players over UDP, with no UI.
+ * Clients send their inputs, and every step each client is sent the objects that differ from the last
+ * snapshot it said it received, bit-packed and cut off at NetProtocol.SNAPSHOT_BUDGET_BYTES.
+ * Objects that don't fit are sent first next time, so however crowded the arena gets a client's bandwidth stays flat
+ *
+ * Usage: GameServer [port] [seed]
+ */
+public class GameServer {
+    // The most steps the server runs back to back to catch up before it drops the backlog
+    private static final int MAX_CATCH_UP_STEPS = 5;
+    // Inputs a client may get ahead by before the oldest are dropped, which bounds their delay
+    private static final int MAX_QUEUED_INPUTS = 4;
+    // Clients not heard from for this long are dropped
+    private static final long TIMEOUT_NANOS = 5_000_000_000L;
+    // How long the game over screen is shown before a new game starts
+    private static final long RESTART_NANOS = 3_000_000_000L;
+    /// How a changed object is ranked for a place in the snapshot, on top of the steps it has waited
+    // The client's own ship is always sent, as its prediction is checked against it
+    private static final int OWN_SHIP_PRIORITY = 1 << 20;
+    // Objects that are gone are cheap to send and shouldn't linger on the client's screen
+    private static final int REMOVED_PRIORITY = 1 << 10;
+
+    private final GameConfig config;
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final Thread thread;
+    private volatile boolean running;
+    private long seed;
+    private World world;
+    // Steps run while anyone is connected, which number the snapshots. Unlike the world's tick,
+    // this keeps counting through game overs and new games
+    private long frame;
+    // When the current game ended, or -1 while it is running
+    private long gameOverAt = -1;
+
+    /// Clients
+    private final Map<SocketAddress, Client> clients = new HashMap<>();
+    private final List<Client> clientList = new ArrayList<>();
+
+    /// Packets, reused for everything sent and received
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET_BYTES);
+    private final BitReader in = new BitReader(NetProtocol.MAX_PACKET_BYTES);
+    private final BitWriter out = new BitWriter(NetProtocol.MAX_PACKET_BYTES);
+    // The world as it is after the current step
+    private final NetState current = new NetState();
+    private final NetState empty = new NetState();
+    // Changed slots keyed by their priority, for sending the most overdue first
+    private long[] changed = new long[256];
+    // The inputs of the packet being read, newest first
+    private final int[] inputs = new int[NetProtocol.INPUT_REDUNDANCY];
+
+    // Told about players coming and going, or null
+    private volatile PlayerListener playerListener;
+
+    /// Stats
+    private long snapshotsSent;
+    private long snapshotBytes;
+    private int maxSnapshotBytes;
+    // Changed objects that didn't fit in a snapshot and had to wait
+    private long deferredObjects;
+
+    // Listens on the given address, which may use port 0 to pick any free port
+    public GameServer(InetSocketAddress address, GameConfig config, long seed) throws IOException {
+        this.config = config;
+        this.seed = seed;
+        channel = DatagramChannel.open();
+        channel.bind(address);
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        thread = new Thread(this::run, "game server");
+        thread.setDaemon(true);
+        newGame();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : NetProtocol.DEFAULT_PORT;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        GameServer server = new GameServer(new InetSocketAddress(port), GameConfig.DEFAULT, seed);
+        System.out.println("Listening on " + server.getLocalAddress());
+        server.setPlayerListener(new PlayerListener() {
+            @Override public void joined(int player, SocketAddress address) {
+                System.out.println("Player " + player + " joined from " + address);
+            }
+
+            @Override public void left(int player) {
+                System.out.println("Player " + player + " left");
+            }
+        });
+        server.running = true;
+        server.run();
+    }
+
+    // Runs the server on its own thread
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    // Stops the server thread and closes the socket
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Receives packets until each step is due, then steps the world and sends the snapshots
+    private void run() {
+        try (channel; selector) {
+            long stepNanos = world.getStepNanos();
+            long nextStep = System.nanoTime();
+            while (running) {
+                long wait = nextStep - System.nanoTime();
+                if (wait > 0) {
+                    selector.select(Math.max(wait / 1_000_000, 1));
+                } else {
+                    selector.selectNow();
+                }
+                selector.selectedKeys().clear();
+                receive();
+
+                long now = System.nanoTime();
+                int steps = 0;
+                while (now >= nextStep && steps < MAX_CATCH_UP_STEPS) {
+                    tick(now);
+                    nextStep += stepNanos;
+                    steps++;
+                }
+                if (now >= nextStep) {
+                    // Too far behind to catch up, so drop the backlog instead of spiralling
+                    nextStep = now + stepNanos;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Starts a new world with a ship for every connected client
+    private void newGame() {
+        world = new World(config, new UniformGridBroadPhase(), seed++);
+        gameOverAt = -1;
+        for (int i = 0; i < clientList.size(); i++) {
+            Client client = clientList.get(i);
+            client.player = i == 0 ? 0 : world.addPlayer();
+            client.slot = world.getPlayers().get(client.player).slot;
+            client.reset();
+        }
+    }
+
+    /// Receiving
+    private void receive() throws IOException {
+        SocketAddress address;
+        while ((address = channel.receive(receiveBuffer.clear())) != null) {
+            in.load(receiveBuffer.flip());
+            try {
+                handle(address);
+            } catch (IllegalArgumentException e) {
+                // A malformed packet is dropped like a lost one
+            }
+        }
+    }
+
+    private void handle(SocketAddress address) throws IOException {
+        int type = in.read(NetProtocol.TYPE_BITS);
+        Client client = clients.get(address);
+        if (client != null) {
+            client.lastHeard = System.nanoTime();
+        }
+
+        switch (type) {
+            case NetProtocol.JOIN:
+                if (in.read(NetProtocol.TYPE_BITS) != NetProtocol.VERSION) return;
+                join(address, client);
+                break;
+            case NetProtocol.INPUT:
+                if (client != null) client.receiveInputs();
+                break;
+            case NetProtocol.LEAVE:
+                if (client != null) leave(client);
+                break;
+        }
+    }
+
+    // Adds a player to the world, or repeats the welcome if they already joined and it was lost
+    private void join(SocketAddress address, Client client) throws IOException {
+        if (client == null) {
+            // Departed players' numbers are reused, so there is room for anyone until every number is held
+            if (clientList.size() == World.MAX_PLAYERS) {
+                out.reset();
+                out.write(NetProtocol.FULL, NetProtocol.TYPE_BITS);
+                channel.send(out.toBuffer(), address);
+                return;
+            }
+
+            client = new Client(address);
+            clients.put(address, client);
+            clientList.add(client);
+            if (world.isGameOver()) {
+                // Everyone starts a new game together
+                newGame();
+                for (Client other : clientList) {
+                    if (other != client) sendWelcome(other);
+                }
+            } else {
+                client.player = claimPlayer();
+                client.slot = world.getPlayers().get(client.player).slot;
+            }
+            PlayerListener listener = playerListener;
+            if (listener != null) listener.joined(client.player, address);
+        }
+        sendWelcome(client);
+    }
+
+    // The lowest player number no client holds, taking over a departed player's ship before adding another
+    private int claimPlayer() {
+        for (int player = 0; player < world.getPlayers().size(); player++) {
+            if (!isHeld(player)) {
+                world.reusePlayer(player);
+                return player;
+            }
+        }
+        return world.addPlayer();
+    }
+
+    private boolean isHeld(int player) {
+        for (Client client : clientList) {
+            if (client.player == player) return true;
+        }
+        return false;
+    }
+
+    // Takes the player's ship out of the game, starting afresh once everyone has gone
+    private void leave(Client client) {
+        clients.remove(client.address);
+        clientList.remove(client);
+        PlayerListener listener = playerListener;
+        if (listener != null) listener.left(client.player);
+        if (clientList.isEmpty()) {
+            newGame();
+        } else {
+            world.removePlayer(client.player);
+        }
+    }
+
+    private void sendWelcome(Client client) throws IOException {
+        out.reset();
+        out.write(NetProtocol.WELCOME, NetProtocol.TYPE_BITS);
+        out.writeVarInt(client.player);
+        out.writeVarInt(client.slot);
+        out.writeVarInt(config.getTickRate());
+        channel.send(out.toBuffer(), client.address);
+    }
+
+    /// Stepping
+    private void tick(long now) throws IOException {
+        // Drop clients that have gone quiet
+        for (int i = clientList.size() - 1; i >= 0; i--) {
+            if (now - clientList.get(i).lastHeard > TIMEOUT_NANOS) {
+                leave(clientList.get(i));
+            }
+        }
+        // The world waits for its first player
+        if (clientList.isEmpty()) return;
+        frame++;
+
+        if (world.isGameOver()) {
+            if (gameOverAt < 0) {
+                gameOverAt = now;
+            } else if (now - gameOverAt > RESTART_NANOS) {
+                newGame();
+                for (Client client : clientList) {
+                    sendWelcome(client);
+                }
+            }
+        } else {
+            for (Client client : clientList) {
+                client.applyNextInput();
+            }
+            world.step();
+        }
+
+        // Everything the clients can see: the same objects a WorldSnapshot captures
+        current.clear();
+        for (PlayerShip player : world.getPlayers()) {
+            if (player.isAlive() || world.isGameOver()) current.set(player);
+        }
+        for (EnemyShip enemy : world.getEnemies()) {
+            current.set(enemy);
+        }
+        for (Projectile projectile : world.getProjectiles()) {
+            current.set(projectile);
+        }
+        current.tick = frame;
+
+        for (Client client : clientList) {
+            sendSnapshot(client);
+        }
+    }
+
+    // Sends the client whatever differs from the last snapshot it received, most overdue first,
+    // and remembers what it will know once this one arrives
+    private void sendSnapshot(Client client) throws IOException {
+        long tick = frame;
+        NetState baseline = client.baseline(tick);
+        NetState sent = client.history[(int) (tick % NetProtocol.HISTORY)];
+        sent.copyFrom(baseline);
+        sent.tick = tick;
+
+        out.reset();
+        out.write(NetProtocol.SNAPSHOT, NetProtocol.TYPE_BITS);
+        out.write((int) tick, NetProtocol.TICK_BITS);
+        out.writeBoolean(baseline.tick >= 0);
+        if (baseline.tick >= 0) {
+            out.write((int) baseline.tick, NetProtocol.TICK_BITS);
+        }
+        out.write(client.lastApplied, NetProtocol.TICK_BITS);
+        out.writeBoolean(world.isGameOver());
+        out.writeVarInt(Math.max(world.getPlayers().get(client.player).getHealth(), 0));
+        out.writeVarInt(world.getScore());
+        out.writeVarInt(world.getWave());
+
+        // Rank the changed objects by how long they have waited
+        int limit = Math.max(current.limit, baseline.limit);
+        client.ensurePriorities(limit);
+        int count = 0;
+        for (int slot = 0; slot < limit; slot++) {
+            if (current.matches(baseline, slot)) continue;
+
+            int priority = ++client.priority[slot];
+            if (slot == client.slot) priority += OWN_SHIP_PRIORITY;
+            if (!current.has(slot)) priority += REMOVED_PRIORITY;
+            if (count == changed.length) {
+                changed = Arrays.copyOf(changed, count * 2);
+            }
+            changed[count++] = (long) priority << 32 | slot;
+        }
+        Arrays.sort(changed, 0, count);
+
+        // Fill the snapshot up to the budget, leaving room to end it
+        int budget = NetProtocol.SNAPSHOT_BUDGET_BYTES * 8 - 1;
+        for (int k = count - 1; k >= 0; k--) {
+            int slot = (int) changed[k];
+            int mark = out.getBitPosition();
+            current.writeRecord(baseline, slot, out);
+            if (out.getBitPosition() > budget) {
+                out.rewind(mark);
+                deferredObjects++;
+                continue;
+            }
+            sent.copySlot(current, slot);
+            client.priority[slot] = 0;
+        }
+        NetState.writeEnd(out);
+
+        int bytes = out.getByteCount();
+        channel.send(out.toBuffer(), client.address);
+        snapshotsSent++;
+        snapshotBytes += bytes;
+        maxSnapshotBytes = Math.max(maxSnapshotBytes, bytes);
+    }
+
+    // Tells the listener about each player joining or leaving from now on, on the server thread
+    public void setPlayerListener(PlayerListener playerListener) { this.playerListener = playerListener; }
+
+    // Receives the players coming and going
+    public interface PlayerListener {
+        void joined(int player, SocketAddress address);
+        void left(int player);
+    }
+
+    /// Stats
+    public SocketAddress getLocalAddress() throws IOException { return channel.getLocalAddress(); }
+    public long getSnapshotsSent() { return snapshotsSent; }
+    public double getAverageSnapshotBytes() { return snapshotsSent == 0 ? 0 : (double) snapshotBytes / snapshotsSent; }
+    public int getMaxSnapshotBytes() { return maxSnapshotBytes; }
+    public long getDeferredObjects() { return deferredObjects; }
+
+    // A connected player
+    private class Client {
+        final SocketAddress address;
+        // The player number, or -1 until one is claimed
+        int player = -1;
+        // The player's ship's slot
+        int slot;
+        long lastHeard = System.nanoTime();
+
+        /// Snapshots
+        // What the client knows after each of the last few snapshots, by tick
+        final NetState[] history = new NetState[NetProtocol.HISTORY];
+        // The newest snapshot the client said it received, or -1
+        long acked = -1;
+        // Steps each changed object has waited to be sent, by slot
+        int[] priority = new int[256];
+
+        /// Inputs, each with the sequence number the client gave it
+        final int[] queue = new int[MAX_QUEUED_INPUTS];
+        final int[] queueSequence = new int[MAX_QUEUED_INPUTS];
+        int queueStart;
+        int queueSize;
+        // The sequence number of the newest input queued, and of the newest applied to the world, or -1
+        int lastQueued = -1;
+        int lastApplied = -1;
+        // The movement keys held in the last input, kept when an input is late
+        int held;
+
+        Client(SocketAddress address) {
+            this.address = address;
+            for (int i = 0; i < history.length; i++) {
+                history[i] = new NetState();
+            }
+        }
+
+        // Forgets what the client knows, e.g. when a new game starts
+        void reset() {
+            for (NetState state : history) {
+                state.clear();
+            }
+            acked = -1;
+            Arrays.fill(priority, 0);
+            held = 0;
+        }
+
+        // The snapshot to send changes from: the newest the client has, if it is still kept
+        NetState baseline(long tick) {
+            NetState state = acked >= 0 ? history[(int) (acked % NetProtocol.HISTORY)] : empty;
+            return state.tick == acked && tick - acked < NetProtocol.HISTORY ? state : empty;
+        }
+
+        void ensurePriorities(int slots) {
+            if (priority.length < slots) {
+                priority = Arrays.copyOf(priority, Math.max(slots, priority.length * 2));
+            }
+        }
+
+        // Reads an input packet: the newest tick the client received, then its newest inputs, newest first
+        void receiveInputs() {
+            long ack = Integer.toUnsignedLong(in.read(NetProtocol.TICK_BITS));
+            if (ack <= frame && ack > acked) {
+                acked = ack;
+            }
+
+            int count = in.read(4);
+            if (count > NetProtocol.INPUT_REDUNDANCY) {
+                throw new IllegalArgumentException(count + " inputs in one packet");
+            }
+            int newest = in.read(NetProtocol.TICK_BITS);
+            for (int k = 0; k < count; k++) {
+                inputs[k] = in.read(NetProtocol.INPUT_BITS);
+            }
+            for (int k = count - 1; k >= 0; k--) {
+                int sequence = newest - k;
+                if (sequence <= lastQueued) continue;
+
+                if (queueSize == MAX_QUEUED_INPUTS) {
+                    // Too far ahead, so skip the oldest input. It never ran, so it isn't counted as applied,
+                    // and the client keeps predicting with it until a later input is applied
+                    queueStart = (queueStart + 1) % MAX_QUEUED_INPUTS;
+                    queueSize--;
+                }
+                int end = (queueStart + queueSize++) % MAX_QUEUED_INPUTS;
+                queue[end] = inputs[k];
+                queueSequence[end] = sequence;
+                lastQueued = sequence;
+            }
+        }
+
+        // Hands the next input to the player's ship, or keeps the keys held if none has arrived
+        void applyNextInput() {
+            if (!world.getPlayers().get(player).isAlive()) return;
+
+            if (queueSize > 0) {
+                int input = queue[queueStart];
+                lastApplied = queueSequence[queueStart];
+                queueStart = (queueStart + 1) % MAX_QUEUED_INPUTS;
+                queueSize--;
+                world.setInput(player, input);
+                held = input & ~PlayerInput.SHOOT;
+            } else {
+                world.setInput(player, held);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * An Agent that plays like ScriptedBot from an observation alone: it turns towards the nearest enemy
+ * and shoots at it, and sidesteps the nearest enemy projectile coming down at it.
+ * It counts its own steps to pace its shots, so each game needs its own
+ */
+public class GreedyAgent implements Agent {
+    // How far off target, in degrees, the ship may point before it turns, and before it stops shooting
+    private static final double AIM_TOLERANCE = 4;
+    private static final double SHOOT_TOLERANCE = 10;
+    // Steps between shots, so the agent fires at a rate a person could
+    private static final int SHOT_INTERVAL = 10;
+    // How close an incoming projectile gets before the agent moves out of the way
+    private static final double DANGER_DISTANCE = 150;
+    // How close to the edge of the world the ship can get, about its width
+    private static final double EDGE = 60;
+
+    private long steps;
+
+    @Override public int act(float[] observation, int offset) {
+        steps++;
+        int input = 0;
+        double x = observation[offset] * World.WIDTH;
+        double rotation = Math.toDegrees(Math.atan2(observation[offset + 2], observation[offset + 3]));
+
+        // Turn towards the nearest enemy and shoot once lined up
+        int enemy = offset + Observation.ENEMIES;
+        if (observation[enemy] != 0) {
+            double dx = observation[enemy + 1] * World.WIDTH;
+            double dy = observation[enemy + 2] * World.HEIGHT;
+            double angle = Math.toDegrees(Math.atan2(dx, -dy));
+            double error = ((angle - rotation) % 360 + 540) % 360 - 180; // -180 to 180
+            if (error > AIM_TOLERANCE) input |= PlayerInput.ROTATE_CLOCKWISE;
+            if (error < -AIM_TOLERANCE) input |= PlayerInput.ROTATE_COUNTER_CLOCKWISE;
+            if (Math.abs(error) < SHOOT_TOLERANCE && steps % SHOT_INTERVAL == 0) {
+                input |= PlayerInput.SHOOT;
+            }
+        }
+
+        // Step away from the closest enemy projectile that is coming down towards the ship.
+        // Projectiles are closest first, so the first one above the ship is the threat
+        for (int i = 0; i < Observation.NEAREST_PROJECTILES; i++) {
+            int projectile = offset + Observation.PROJECTILES + i * Observation.PROJECTILE_FIELDS;
+            if (observation[projectile] == 0) break;
+            if (observation[projectile + 5] == 0 || observation[projectile + 2] > 0) continue;
+
+            double dx = observation[projectile + 1] * World.WIDTH;
+            double dy = observation[projectile + 2] * World.HEIGHT;
+            if (dx * dx + dy * dy >= DANGER_DISTANCE * DANGER_DISTANCE) break;
+
+            boolean roomOnRight = x < World.WIDTH - EDGE;
+            boolean dodgeRight = dx < 0 ? roomOnRight : x < EDGE;
+            input |= dodgeRight ? PlayerInput.RIGHT : PlayerInput.LEFT;
+            break;
+        }
+        return input;
+    }
+}
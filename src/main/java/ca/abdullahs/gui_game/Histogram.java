@@ -0,0 +1,77 @@
+package ca.abdullahs.gui_game;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size histogram of non-negative values in the style of HdrHistogram: each power of two
+ * is split into linear sub-buckets, so every value is kept to within about 3% using a few KB
+ * and recording never allocates
+ */
+public class Histogram {
+    // Values below SUB_BUCKETS are counted exactly, and each power of two above that gets HALF buckets
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int MAX_SHIFT = 63 - SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[SUB_BUCKETS + MAX_SHIFT * HALF];
+    private long total;
+    private long sum;
+    private long max;
+
+    // Counts a value, with negative values counted as 0
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts[indexOf(value)]++;
+        total++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    // The value that the given percentage (0 to 100) of recorded values are at or below
+    public long percentile(double percent) {
+        if (total == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(percent / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(valueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    public double mean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    public long getCount() { return total; }
+    public long getMax() { return max; }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    // The bucket a value is counted in
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        // Keep the top SUB_BUCKET_BITS bits of the value, which start with a 1
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) ((value >>> shift) - HALF);
+    }
+
+    // A value in the middle of a bucket
+    private static long valueOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long lowest = (long) ((index - SUB_BUCKETS) % HALF + HALF) << shift;
+        return lowest + (1L << shift) / 2;
+    }
+}
@@ -0,0 +1,96 @@
+package ca.abdullahs.gui_game;
+
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * The health, score, wave and FPS readouts, built once and only touched when a value changes
+ */
+public class Hud {
+    // How often the FPS readout is worked out
+    private static final long FPS_SAMPLE_NANOS = 1_000_000_000L;
+
+    private final Text[] hearts = new Text[PlayerShip.MAX_HEALTH];
+    private final Text score;
+    private final Text wave;
+    private final Text fps;
+    // A notice across the middle of the screen, e.g. why the game can't go on
+    private final Text message;
+
+    // The values currently on screen, or -1 if a readout needs redrawing
+    private int shownHealth = -1;
+    private int shownScore = -1;
+    private int shownWave = -1;
+
+    // Frames counted since the FPS readout was last worked out
+    private int frames;
+    private long lastFpsSample = -1;
+
+    public Hud(Pane root) {
+        for (int i = 0; i < hearts.length; i++) {
+            hearts[i] = new Text(10 + i * 20, 20, "♥");
+            hearts[i].setFill(Color.RED);
+        }
+        score = readout(World.WIDTH / 2.0 - 90, 20);
+        wave = readout(World.WIDTH / 2.0 + 40, 20);
+        fps = readout(World.WIDTH - 60, World.HEIGHT - 10);
+        message = readout(0, World.HEIGHT / 2.0);
+        message.setWrappingWidth(World.WIDTH);
+        message.setTextAlignment(TextAlignment.CENTER);
+
+        root.getChildren().addAll(hearts);
+        root.getChildren().addAll(score, wave, fps, message);
+    }
+
+    private static Text readout(double x, double y) {
+        Text text = new Text(x, y, "");
+        text.setFill(Color.WHITE);
+        return text;
+    }
+
+    // Brings the readouts in line with the world, touching only the ones whose value changed
+    public void update(WorldSnapshot snapshot) {
+        int health = snapshot.getHealth();
+        if (health != shownHealth) {
+            for (int i = 0; i < hearts.length; i++) {
+                hearts[i].setVisible(i < health);
+            }
+            shownHealth = health;
+        }
+        if (snapshot.getScore() != shownScore) {
+            shownScore = snapshot.getScore();
+            score.setText("Score " + shownScore);
+        }
+        if (snapshot.getWave() != shownWave) {
+            shownWave = snapshot.getWave();
+            wave.setText("Wave " + shownWave);
+        }
+    }
+
+    // Counts a frame drawn at the given timestamp, refreshing the FPS readout once a second
+    public void frame(long now) {
+        frames++;
+        if (lastFpsSample < 0) {
+            lastFpsSample = now;
+        } else if (now - lastFpsSample >= FPS_SAMPLE_NANOS) {
+            fps.setText(Math.round(frames * 1e9 / (now - lastFpsSample)) + " FPS");
+            frames = 0;
+            lastFpsSample = now;
+        }
+    }
+
+    // Shows a notice across the middle of the screen, or clears it when given null
+    public void setMessage(String text) {
+        message.setText(text == null ? "" : text);
+        message.toFront();
+    }
+
+    // Makes every readout redraw on the next update, e.g. for a new game
+    public void reset() {
+        shownHealth = -1;
+        shownScore = -1;
+        shownWave = -1;
+    }
+}
@@ -0,0 +1,65 @@
+package ca.abdullahs.gui_game;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Records a game as its seed plus the player's input and resulting state hash for every step,
+ * so Replay can play it back exactly
+ *
+ * Format: the MAGIC number, VERSION, seed (long) and the game's settings (tick rate, projectile pool
+ * capacity, initial spawn interval, enemy base speed, enemy angle variance, enemy shot cooldown,
+ * live entity cap, wave script source as a length-prefixed UTF-8 string),
+ * then one record per step of the input flags (byte) and the low 32 bits of the state hash (int)
+ */
+public class InputRecorder implements Closeable {
+    public static final int MAGIC = 0x53495250; // "SIRP"
+    public static final int VERSION = 4;
+
+    private final DataOutputStream out;
+
+    public InputRecorder(OutputStream out, World world) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        GameConfig config = world.getConfig();
+        try {
+            this.out.writeInt(MAGIC);
+            this.out.writeByte(VERSION);
+            this.out.writeLong(world.getSeed());
+            this.out.writeInt(config.getTickRate());
+            this.out.writeInt(config.getProjectilePoolCapacity());
+            this.out.writeDouble(config.getInitialSpawnInterval());
+            this.out.writeDouble(config.getEnemyBaseSpeed());
+            this.out.writeDouble(config.getEnemyAngleVariance());
+            this.out.writeLong(config.getEnemyShotCooldown());
+            this.out.writeInt(config.getMaxLiveEntities());
+            byte[] source = config.getWaves().getSource().getBytes(StandardCharsets.UTF_8);
+            this.out.writeInt(source.length);
+            this.out.write(source);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Steps the world, recording the input the step used and the state it led to
+    public void step(World world) {
+        if (world.isGameOver()) return;
+
+        int input = world.getInput();
+        world.step();
+        try {
+            out.writeByte(input);
+            out.writeInt((int) world.stateHash());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override public void close() throws IOException {
+        out.close();
+    }
+}
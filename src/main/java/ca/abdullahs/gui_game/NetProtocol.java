@@ -0,0 +1,91 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * The packets GameServer and GameClient send each other over UDP, and how the world's state is squeezed into them.
+ * Every packet starts with one of the packet types below in its first byte.
+ *
+ * JOIN      client -> server  protocol version
+ * WELCOME   server -> client  player number, the player's ship slot, tick rate
+ * FULL      server -> client  no room for another player
+ * INPUT     client -> server  latest snapshot tick received, then the newest inputs, each with its sequence number,
+ *                             repeated from packet to packet so a lost packet loses nothing
+ * SNAPSHOT  server -> client  tick, baseline tick, last input sequence applied, game state, then the objects
+ *                             that differ from the baseline (see GameServer)
+ * LEAVE     client -> server  the player has left
+ */
+public final class NetProtocol {
+    public static final int VERSION = 1;
+    public static final int DEFAULT_PORT = 7777;
+
+    /// Packet types
+    public static final int JOIN = 1;
+    public static final int WELCOME = 2;
+    public static final int FULL = 3;
+    public static final int INPUT = 4;
+    public static final int SNAPSHOT = 5;
+    public static final int LEAVE = 6;
+    public static final int TYPE_BITS = 8;
+
+    /// Sizes
+    // Room for any packet, kept under a typical MTU so nothing is fragmented
+    public static final int MAX_PACKET_BYTES = 1400;
+    // The most a snapshot may take; objects that don't fit wait for the next one
+    public static final int SNAPSHOT_BUDGET_BYTES = 1200;
+    // How many past ticks each side keeps, for deltas against the snapshot the client last received
+    public static final int HISTORY = 32;
+    // How many of its newest inputs a client sends in every input packet
+    public static final int INPUT_REDUNDANCY = 8;
+    public static final int INPUT_BITS = 5;
+    public static final int TICK_BITS = 32;
+
+    /// Quantization of the objects' state
+    // Positions are kept in 1/8 pixel steps, signed so objects just off the screen fit too
+    public static final int POSITION_SCALE = 8;
+    public static final int POSITION_BITS = 16;
+    // Rotations are kept in half degree steps
+    public static final int ROTATION_STEPS = 720;
+    public static final int ROTATION_BITS = 10;
+    // Sizes are kept in 1/8 pixel steps, up to 128 pixels
+    public static final int SIZE_BITS = 10;
+    // The most EntityStore slots a client will track
+    public static final int MAX_SLOTS = 1 << 16;
+    // The object's sprite number
+    public static final int KIND_BITS = 4;
+    // Changes small enough to be sent as a short signed delta instead of the whole value
+    public static final int SMALL_DELTA_BITS = 8;
+
+    private static final int MAX_POSITION = (1 << (POSITION_BITS - 1)) - 1;
+    private static final int MAX_SIZE = (1 << SIZE_BITS) - 1;
+
+    private NetProtocol() {}
+
+    public static int quantizePosition(double position) {
+        long value = Math.round(position * POSITION_SCALE);
+        return (int) Math.min(Math.max(value, -MAX_POSITION), MAX_POSITION);
+    }
+
+    public static double dequantizePosition(int value) {
+        return (double) value / POSITION_SCALE;
+    }
+
+    public static int quantizeRotation(double degrees) {
+        return Math.floorMod(Math.round(degrees * ROTATION_STEPS / 360), ROTATION_STEPS);
+    }
+
+    public static double dequantizeRotation(int value) {
+        return value * 360.0 / ROTATION_STEPS;
+    }
+
+    public static int quantizeSize(double size) {
+        return (int) Math.min(Math.round(size * POSITION_SCALE), MAX_SIZE);
+    }
+
+    public static double dequantizeSize(int value) {
+        return (double) value / POSITION_SCALE;
+    }
+
+    // Whether a change in a quantized value fits in a short delta
+    public static boolean isSmallDelta(int delta) {
+        return delta >= -(1 << (SMALL_DELTA_BITS - 1)) && delta < 1 << (SMALL_DELTA_BITS - 1);
+    }
+}
@@ -0,0 +1,202 @@
+package ca.abdullahs.gui_game;
+
+import java.util.Arrays;
+
+/**
+ * The quantized state of every object one client knows about at one tick, by EntityStore slot.
+ * The server keeps one for every snapshot it sends to a client and the client one for every snapshot it receives,
+ * and as both apply the same changes to the same baseline they agree on the state behind every tick
+ */
+public class NetState {
+    private static final int INITIAL_CAPACITY = 256;
+    // The kind of an empty slot
+    static final int NONE = -1;
+
+    // The tick this state is from, or -1 if it holds nothing yet
+    long tick = -1;
+    // Slots at and above this hold nothing
+    int limit;
+
+    /// Per-slot state
+    int[] kind = new int[INITIAL_CAPACITY];
+    int[] x = new int[INITIAL_CAPACITY];
+    int[] y = new int[INITIAL_CAPACITY];
+    int[] rotation = new int[INITIAL_CAPACITY];
+    int[] width = new int[INITIAL_CAPACITY];
+    int[] height = new int[INITIAL_CAPACITY];
+
+    public NetState() {
+        Arrays.fill(kind, NONE);
+    }
+
+    // Empties the state
+    public void clear() {
+        Arrays.fill(kind, 0, limit, NONE);
+        limit = 0;
+        tick = -1;
+    }
+
+    public void copyFrom(NetState other) {
+        ensureCapacity(other.limit);
+        System.arraycopy(other.kind, 0, kind, 0, other.limit);
+        System.arraycopy(other.x, 0, x, 0, other.limit);
+        System.arraycopy(other.y, 0, y, 0, other.limit);
+        System.arraycopy(other.rotation, 0, rotation, 0, other.limit);
+        System.arraycopy(other.width, 0, width, 0, other.limit);
+        System.arraycopy(other.height, 0, height, 0, other.limit);
+        if (limit > other.limit) {
+            Arrays.fill(kind, other.limit, limit, NONE);
+        }
+        limit = other.limit;
+        tick = other.tick;
+    }
+
+    public void set(int slot, int kind, int x, int y, int rotation, int width, int height) {
+        ensureCapacity(slot + 1);
+        this.kind[slot] = kind;
+        this.x[slot] = x;
+        this.y[slot] = y;
+        this.rotation[slot] = rotation;
+        this.width[slot] = width;
+        this.height[slot] = height;
+        limit = Math.max(limit, slot + 1);
+    }
+
+    // Sets the state of a game object
+    public void set(GameObject object) {
+        set(object.slot, object.getSprite(),
+                NetProtocol.quantizePosition(object.getX()),
+                NetProtocol.quantizePosition(object.getY()),
+                NetProtocol.quantizeRotation(object.getRenderRotation(1)),
+                NetProtocol.quantizeSize(object.getWidth()),
+                NetProtocol.quantizeSize(object.getHeight()));
+    }
+
+    // Sets a slot to whatever another state holds there
+    public void copySlot(NetState other, int slot) {
+        if (other.has(slot)) {
+            set(slot, other.kind[slot], other.x[slot], other.y[slot], other.rotation[slot],
+                    other.width[slot], other.height[slot]);
+        } else {
+            remove(slot);
+        }
+    }
+
+    public void remove(int slot) {
+        if (slot < limit) {
+            kind[slot] = NONE;
+        }
+    }
+
+    public boolean has(int slot) {
+        return slot < limit && kind[slot] != NONE;
+    }
+
+    // Whether a slot holds the same object, in the same place, in both states
+    public boolean matches(NetState other, int slot) {
+        return has(slot) == other.has(slot) && (!has(slot) || kind[slot] == other.kind[slot]
+                && x[slot] == other.x[slot]
+                && y[slot] == other.y[slot]
+                && rotation[slot] == other.rotation[slot]
+                && width[slot] == other.width[slot]
+                && height[slot] == other.height[slot]);
+    }
+
+    /// Records: each slot that changed is sent as whether there are more records, the slot, whether the
+    /// slot holds anything, and then either the whole object, when it is new to the baseline, or each field
+    /// that changed as a short delta or its whole value
+    // Writes how the slot changed from the baseline to this state
+    public void writeRecord(NetState baseline, int slot, BitWriter out) {
+        out.writeBoolean(true);
+        out.writeVarInt(slot);
+        boolean present = has(slot);
+        out.writeBoolean(present);
+        if (!present) return;
+
+        boolean whole = !baseline.has(slot) || baseline.kind[slot] != kind[slot]
+                || baseline.width[slot] != width[slot] || baseline.height[slot] != height[slot];
+        out.writeBoolean(whole);
+        if (whole) {
+            out.write(kind[slot], NetProtocol.KIND_BITS);
+            out.write(width[slot], NetProtocol.SIZE_BITS);
+            out.write(height[slot], NetProtocol.SIZE_BITS);
+            out.write(x[slot], NetProtocol.POSITION_BITS);
+            out.write(y[slot], NetProtocol.POSITION_BITS);
+            out.write(rotation[slot], NetProtocol.ROTATION_BITS);
+        } else {
+            writeField(out, x[slot] - baseline.x[slot], x[slot], NetProtocol.POSITION_BITS);
+            writeField(out, y[slot] - baseline.y[slot], y[slot], NetProtocol.POSITION_BITS);
+            // Turning past 0 is a small change too
+            int turn = Math.floorMod(rotation[slot] - baseline.rotation[slot] + NetProtocol.ROTATION_STEPS / 2,
+                    NetProtocol.ROTATION_STEPS) - NetProtocol.ROTATION_STEPS / 2;
+            writeField(out, turn, rotation[slot], NetProtocol.ROTATION_BITS);
+        }
+    }
+
+    // Ends the records of a snapshot
+    public static void writeEnd(BitWriter out) {
+        out.writeBoolean(false);
+    }
+
+    // Applies the next record to this state, which must start out as a copy of the baseline,
+    // and returns its slot, or -1 once there are no more
+    public int readRecord(BitReader in) {
+        if (!in.readBoolean()) return -1;
+        int slot = in.readVarInt();
+        if (slot >= NetProtocol.MAX_SLOTS) {
+            throw new IllegalArgumentException("Slot " + slot + " is out of range");
+        }
+        if (!in.readBoolean()) {
+            remove(slot);
+            return slot;
+        }
+
+        if (in.readBoolean()) {
+            int kind = in.read(NetProtocol.KIND_BITS);
+            int width = in.read(NetProtocol.SIZE_BITS);
+            int height = in.read(NetProtocol.SIZE_BITS);
+            int x = in.readSigned(NetProtocol.POSITION_BITS);
+            int y = in.readSigned(NetProtocol.POSITION_BITS);
+            int rotation = in.read(NetProtocol.ROTATION_BITS);
+            set(slot, kind, x, y, rotation, width, height);
+        } else {
+            if (!has(slot)) {
+                throw new IllegalArgumentException("Change to empty slot " + slot);
+            }
+            x[slot] = readField(in, x[slot], NetProtocol.POSITION_BITS, true);
+            y[slot] = readField(in, y[slot], NetProtocol.POSITION_BITS, true);
+            rotation[slot] = Math.floorMod(readField(in, rotation[slot], NetProtocol.ROTATION_BITS, false),
+                    NetProtocol.ROTATION_STEPS);
+        }
+        return slot;
+    }
+
+    private static void writeField(BitWriter out, int delta, int value, int bits) {
+        out.writeBoolean(delta != 0);
+        if (delta == 0) return;
+
+        boolean small = NetProtocol.isSmallDelta(delta);
+        out.writeBoolean(small);
+        out.write(small ? delta : value, small ? NetProtocol.SMALL_DELTA_BITS : bits);
+    }
+
+    private static int readField(BitReader in, int baseline, int bits, boolean signed) {
+        if (!in.readBoolean()) return baseline;
+        if (in.readBoolean()) return baseline + in.readSigned(NetProtocol.SMALL_DELTA_BITS);
+        return signed ? in.readSigned(bits) : in.read(bits);
+    }
+
+    private void ensureCapacity(int slots) {
+        if (kind.length < slots) {
+            int capacity = Math.max(slots, kind.length * 2);
+            int old = kind.length;
+            kind = Arrays.copyOf(kind, capacity);
+            Arrays.fill(kind, old, capacity, NONE);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            rotation = Arrays.copyOf(rotation, capacity);
+            width = Arrays.copyOf(width, capacity);
+            height = Arrays.copyOf(height, capacity);
+        }
+    }
+}
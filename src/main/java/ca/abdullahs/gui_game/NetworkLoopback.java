@@ -0,0 +1,75 @@
+package ca.abdullahs.gui_game;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A headless check of multiplayer: starts a GameServer on the loopback interface, connects clients to it
+ * that press keys at random, and reports the size of the snapshots and how well each client predicted its ship
+ *
+ * Usage: NetworkLoopback [clients] [seconds] [entity cap]
+ */
+public class NetworkLoopback {
+    private static final long SEED = 42;
+    // How many steps each random key combination is held for
+    private static final int INPUT_HOLD_STEPS = 30;
+
+    public static void main(String[] args) throws IOException {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        GameConfig config = GameConfig.DEFAULT;
+        if (args.length > 2) {
+            config = config.withMaxLiveEntities(Integer.parseInt(args[2]));
+        }
+
+        GameServer server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), config, SEED);
+        server.start();
+
+        GameClient[] clients = new GameClient[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            clients[i] = new GameClient(server.getLocalAddress());
+        }
+        Random random = new Random(SEED);
+        WorldSnapshot snapshot = new WorldSnapshot();
+        int largestArena = 0;
+
+        // Step the clients at the server's tick rate, as a frame loop would
+        long stepNanos = 1_000_000_000L / config.getTickRate();
+        long steps = seconds * 1_000_000_000L / stepNanos;
+        long nextStep = System.nanoTime();
+        for (long step = 0; step < steps; step++) {
+            for (GameClient client : clients) {
+                client.poll();
+                if (step % INPUT_HOLD_STEPS == 0) {
+                    client.setInput(random.nextInt(1 << NetProtocol.INPUT_BITS));
+                }
+                client.step();
+                client.fill(snapshot);
+                largestArena = Math.max(largestArena, snapshot.getCount());
+            }
+
+            nextStep += stepNanos;
+            LockSupport.parkNanos(nextStep - System.nanoTime());
+        }
+
+        for (GameClient client : clients) {
+            client.close();
+        }
+        server.stop();
+
+        System.out.printf("server: %,d snapshots, %.1f bytes average, %,d bytes largest, %,d objects deferred%n",
+                server.getSnapshotsSent(), server.getAverageSnapshotBytes(), server.getMaxSnapshotBytes(),
+                server.getDeferredObjects());
+        System.out.printf("largest arena seen: %d objects%n", largestArena);
+        for (int i = 0; i < clientCount; i++) {
+            GameClient client = clients[i];
+            System.out.printf("client %d (player %d): %,d snapshots, %.1f bytes average, "
+                            + "prediction error %.3f px average %.3f px worst, %,d corrections%n",
+                    i, client.getPlayer(), client.getSnapshotsReceived(), client.getAverageSnapshotBytes(),
+                    client.getAveragePredictionError(), client.getMaxPredictionError(), client.getCorrections());
+        }
+    }
+}
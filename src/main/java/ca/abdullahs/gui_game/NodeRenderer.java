@@ -0,0 +1,171 @@
+package ca.abdullahs.gui_game;
+
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shows the state of a world with one ImageView per game object.
+ * Taking a node out of the scene graph is far slower than hiding it, so the nodes of objects that leave
+ * are hidden and kept for later objects with the same sprite, and the nodes added or removed during
+ * a frame are applied to the scene graph together at the end of it
+ */
+public class NodeRenderer implements Renderer {
+    private final Pane root;
+    private final SpriteAtlas atlas;
+    // Hidden nodes kept in the scene to be reused, by sprite, and how many are kept of each sprite
+    private final List<ArrayDeque<ImageView>> freeNodes = new ArrayList<>();
+    private final int freeNodeCapacity;
+    // Incremented every frame to find the nodes whose object has gone
+    private long frame;
+
+    /// The node showing each EntityStore slot, the sprite it shows and the last frame its object was seen
+    private ImageView[] nodes = new ImageView[64];
+    private int[] nodeSprite = new int[64];
+    private long[] lastSeen = new long[64];
+    // Every slot with a node is below this
+    private int slotLimit;
+
+    /// Scene graph changes waiting for the end of the frame. Removals are looked up by identity,
+    /// so removing them all is one pass over the children and one change event
+    private final List<Node> addedNodes = new ArrayList<>();
+    private final Set<Node> removedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public NodeRenderer(Pane root) {
+        this(root, Sprites.separate(), ProjectilePool.DEFAULT_CAPACITY);
+    }
+
+    public NodeRenderer(Pane root, SpriteAtlas atlas, int freeNodeCapacity) {
+        this.root = root;
+        this.atlas = atlas;
+        this.freeNodeCapacity = freeNodeCapacity;
+    }
+
+    // Brings the scene graph in line with the world, where alpha is how far
+    // through the next step the frame is
+    @Override public void render(WorldSnapshot snapshot, double alpha) {
+        frame++;
+
+        for (int i = 0; i < snapshot.getCount(); i++) {
+            show(snapshot, i, alpha);
+        }
+
+        // Take away the nodes of objects that are no longer in the world
+        for (int slot = 0; slot < slotLimit; slot++) {
+            if (nodes[slot] != null && lastSeen[slot] != frame) {
+                discardNode(slot);
+            }
+        }
+        applySceneChanges();
+    }
+
+    // Hides every node this renderer shows, keeping them for the next game
+    @Override public void clear() {
+        for (int slot = 0; slot < slotLimit; slot++) {
+            if (nodes[slot] != null) {
+                discardNode(slot);
+            }
+        }
+        slotLimit = 0;
+        applySceneChanges();
+    }
+
+    // Removes every node this renderer has added
+    @Override public void dispose() {
+        clear();
+        for (ArrayDeque<ImageView> free : freeNodes) {
+            removedNodes.addAll(free);
+            free.clear();
+        }
+        applySceneChanges();
+    }
+
+    // Makes the frame's changes to the scene graph with one removal and one addition
+    private void applySceneChanges() {
+        if (!removedNodes.isEmpty()) {
+            root.getChildren().removeAll(removedNodes);
+            removedNodes.clear();
+        }
+        if (!addedNodes.isEmpty()) {
+            root.getChildren().addAll(addedNodes);
+            addedNodes.clear();
+        }
+    }
+
+    // Moves the object's node to its position, creating the node if needed
+    private void show(WorldSnapshot snapshot, int i, double alpha) {
+        int slot = snapshot.getSlot(i);
+        int sprite = snapshot.getSprite(i);
+        if (slot >= nodes.length) {
+            int capacity = Math.max(slot + 1, nodes.length * 2);
+            nodes = Arrays.copyOf(nodes, capacity);
+            nodeSprite = Arrays.copyOf(nodeSprite, capacity);
+            lastSeen = Arrays.copyOf(lastSeen, capacity);
+        }
+
+        // A slot handed to a different kind of object since the last frame needs a different node
+        if (nodes[slot] != null && nodeSprite[slot] != sprite) {
+            discardNode(slot);
+        }
+        if (nodes[slot] == null) {
+            nodes[slot] = obtainNode(sprite);
+            nodeSprite[slot] = sprite;
+            slotLimit = Math.max(slotLimit, slot + 1);
+        }
+        lastSeen[slot] = frame;
+
+        // Center the sprite's pivot point on the object
+        ImageView node = nodes[slot];
+        double width = snapshot.getWidth(i);
+        double height = snapshot.getHeight(i);
+        if (node.getFitWidth() != width || node.getFitHeight() != height) {
+            node.setFitWidth(width);
+            node.setFitHeight(height);
+        }
+        node.setTranslateX(snapshot.getRenderX(i, alpha) - width/2);
+        node.setTranslateY(snapshot.getRenderY(i, alpha) - height/2);
+        node.setRotate(snapshot.getRenderRotation(i, alpha));
+    }
+
+    // Sets up a node showing the sprite, reusing a hidden one if possible
+    private ImageView obtainNode(int sprite) {
+        ImageView node = freeNodes(sprite).pollLast();
+        if (node == null) {
+            node = new ImageView(atlas.getImage(sprite));
+            node.setViewport(atlas.getRegion(sprite));
+            node.setPreserveRatio(true);
+            addedNodes.add(node);
+        }
+        node.setVisible(true);
+        return node;
+    }
+
+    // Takes away the node of an object that has left the world,
+    // hiding it instead of removing it while there is room to keep it
+    private void discardNode(int slot) {
+        ImageView node = nodes[slot];
+        nodes[slot] = null;
+        ArrayDeque<ImageView> free = freeNodes(nodeSprite[slot]);
+        if (free.size() < freeNodeCapacity) {
+            node.setVisible(false);
+            free.addLast(node);
+        } else {
+            removedNodes.add(node);
+        }
+    }
+
+    // The hidden nodes of a sprite
+    private ArrayDeque<ImageView> freeNodes(int sprite) {
+        while (freeNodes.size() <= sprite) {
+            freeNodes.add(new ArrayDeque<>());
+        }
+        return freeNodes.get(sprite);
+    }
+}
@@ -0,0 +1,92 @@
+package ca.abdullahs.gui_game;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes what a player can see into a fixed layout of floats, so an Agent can play from a plain array
+ * and many games' observations can sit side by side in one buffer.
+ *
+ * Layout, from the offset given: the player's x and y over the world's size, the sine and cosine
+ * of its rotation, and its health over PlayerShip.MAX_HEALTH; then the NEAREST_ENEMIES nearest enemies,
+ * closest first, each as ENEMY_FIELDS floats (a 1 for a slot in use, x and y relative to the player over
+ * the world's size, velocity over SPEED_SCALE); then the NEAREST_PROJECTILES nearest projectiles, the same
+ * way with a last field of 1 for the enemies' projectiles and 0 for the players'. Unused slots are all 0
+ */
+public final class Observation {
+    public static final int NEAREST_ENEMIES = 8;
+    public static final int NEAREST_PROJECTILES = 8;
+    public static final int PLAYER_FIELDS = 5;
+    public static final int ENEMY_FIELDS = 5;
+    public static final int PROJECTILE_FIELDS = 6;
+    // Where each part starts, and the floats in a whole observation
+    public static final int ENEMIES = PLAYER_FIELDS;
+    public static final int PROJECTILES = ENEMIES + NEAREST_ENEMIES * ENEMY_FIELDS;
+    public static final int SIZE = PROJECTILES + NEAREST_PROJECTILES * PROJECTILE_FIELDS;
+    // Velocities are per 60 fps frame, and this brings the fastest objects to around 1
+    private static final float SPEED_SCALE = 10;
+
+    // The nearest objects found so far, as indices into their list and squared distances, closest first
+    private final int[] nearest = new int[Math.max(NEAREST_ENEMIES, NEAREST_PROJECTILES)];
+    private final double[] nearestDistance = new double[nearest.length];
+    private int nearestCount;
+
+    // Writes the player's view of the world into the buffer from the offset, without allocating
+    public void write(World world, int player, float[] out, int offset) {
+        Arrays.fill(out, offset, offset + SIZE, 0);
+        PlayerShip ship = world.getPlayers().get(player);
+        double x = ship.getX();
+        double y = ship.getY();
+        double rotation = Math.toRadians(ship.getRotation());
+        out[offset] = (float) (x / World.WIDTH);
+        out[offset + 1] = (float) (y / World.HEIGHT);
+        out[offset + 2] = (float) Math.sin(rotation);
+        out[offset + 3] = (float) Math.cos(rotation);
+        out[offset + 4] = (float) ship.getHealth() / PlayerShip.MAX_HEALTH;
+
+        List<EnemyShip> enemies = world.getEnemies();
+        findNearest(enemies, x, y, NEAREST_ENEMIES);
+        for (int i = 0; i < nearestCount; i++) {
+            writeObject(enemies.get(nearest[i]), x, y, out, offset + ENEMIES + i * ENEMY_FIELDS);
+        }
+
+        List<Projectile> projectiles = world.getProjectiles();
+        findNearest(projectiles, x, y, NEAREST_PROJECTILES);
+        for (int i = 0; i < nearestCount; i++) {
+            Projectile projectile = projectiles.get(nearest[i]);
+            int at = offset + PROJECTILES + i * PROJECTILE_FIELDS;
+            writeObject(projectile, x, y, out, at);
+            out[at + 5] = projectile.isPlayerProjectile() ? 0 : 1;
+        }
+    }
+
+    private static void writeObject(GameObject object, double x, double y, float[] out, int at) {
+        out[at] = 1;
+        out[at + 1] = (float) ((object.getX() - x) / World.WIDTH);
+        out[at + 2] = (float) ((object.getY() - y) / World.HEIGHT);
+        out[at + 3] = (float) object.getVelocityX() / SPEED_SCALE;
+        out[at + 4] = (float) object.getVelocityY() / SPEED_SCALE;
+    }
+
+    // Keeps the closest few objects in order by inserting each one into the short sorted list
+    private void findNearest(List<? extends GameObject> objects, double x, double y, int limit) {
+        nearestCount = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            GameObject object = objects.get(i);
+            double dx = object.getX() - x;
+            double dy = object.getY() - y;
+            double distance = dx * dx + dy * dy;
+            if (nearestCount == limit && distance >= nearestDistance[limit - 1]) continue;
+
+            int at = Math.min(nearestCount, limit - 1);
+            while (at > 0 && nearestDistance[at - 1] > distance) {
+                nearest[at] = nearest[at - 1];
+                nearestDistance[at] = nearestDistance[at - 1];
+                at--;
+            }
+            nearest[at] = i;
+            nearestDistance[at] = distance;
+            nearestCount = Math.min(nearestCount + 1, limit);
+        }
+    }
+}
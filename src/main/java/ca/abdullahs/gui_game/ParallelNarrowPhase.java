@@ -0,0 +1,237 @@
+package ca.abdullahs.gui_game;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the exact collision tests of a step on a ForkJoinPool. The tests only read the world,
+ * so the broad-phase regions and chunks of projectiles are tested side by side,
+ * and the collisions found are handed back in the order a single thread would have found them,
+ * for the world to act on one at a time
+ */
+class ParallelNarrowPhase {
+    // The projectiles are split into this many chunks per thread, to even out the work
+    private static final int CHUNKS_PER_THREAD = 4;
+    // A projectile hitting a player rather than an enemy is marked with the player's number below zero
+    static int playerHit(int player) {
+        return -player - 1;
+    }
+
+    static int playerOf(int hit) {
+        return -hit - 1;
+    }
+
+    private final ForkJoinPool pool;
+    private final BroadPhase broadPhase;
+    private final PairRegion[] pairRegions;
+    private final ProjectileChunk[] projectileChunks;
+    private final ForkJoinTask<?>[] tasks;
+    // The number of steps whose tests were run on the pool
+    private long runs;
+    // Runs every task and waits for them all
+    private final RecursiveAction all = new RecursiveAction() {
+        @Override protected void compute() {
+            invokeAll(tasks);
+        }
+    };
+
+    /// What is being tested, set for the length of a run
+    private List<EnemyShip> enemies;
+    private List<Projectile> projectiles;
+    private List<PlayerShip> players;
+
+    ParallelNarrowPhase(ForkJoinPool pool, BroadPhase broadPhase) {
+        this.pool = pool;
+        this.broadPhase = broadPhase;
+
+        pairRegions = new PairRegion[broadPhase.getRegionCount()];
+        for (int region = 0; region < pairRegions.length; region++) {
+            pairRegions[region] = new PairRegion(region);
+        }
+        projectileChunks = new ProjectileChunk[pool.getParallelism() * CHUNKS_PER_THREAD];
+        for (int chunk = 0; chunk < projectileChunks.length; chunk++) {
+            projectileChunks[chunk] = new ProjectileChunk(chunk);
+        }
+        tasks = new ForkJoinTask<?>[pairRegions.length + projectileChunks.length];
+    }
+
+    // Tests the enemy pairs and projectile hits of a world whose broad-phase has been built.
+    // The tasks are reused from step to step, so nothing is allocated once the result buffers have grown
+    void run(List<EnemyShip> enemies, List<Projectile> projectiles, List<PlayerShip> players) {
+        this.enemies = enemies;
+        this.projectiles = projectiles;
+        this.players = players;
+
+        int t = 0;
+        for (PairRegion region : pairRegions) {
+            region.reinitialize();
+            tasks[t++] = region;
+        }
+        for (ProjectileChunk chunk : projectileChunks) {
+            chunk.reinitialize();
+            tasks[t++] = chunk;
+        }
+        all.reinitialize();
+        pool.invoke(all);
+        runs++;
+
+        this.enemies = null;
+        this.projectiles = null;
+        this.players = null;
+    }
+
+    long getRuns() {
+        return runs;
+    }
+
+    // The number of exact tests made in the last run
+    int getTests() {
+        int tests = 0;
+        for (PairRegion region : pairRegions) {
+            tests += region.tests;
+        }
+        for (ProjectileChunk chunk : projectileChunks) {
+            tests += chunk.tests;
+        }
+        return tests;
+    }
+
+    // Visits the colliding enemy pairs of the last run, in forEachPair order
+    void forEachEnemyCollision(BroadPhase.PairVisitor visitor) {
+        for (PairRegion region : pairRegions) {
+            region.collisions.forEach(visitor);
+        }
+    }
+
+    // Visits the projectile hits of the last run in projectile order, each as the projectile's index
+    // and either the index of the enemy it hit or a playerHit mark, with a hit on a player before any enemies.
+    // A projectile's enemy hits come in the order it reached them, ties going to the lowest index,
+    // as whether an enemy is still there to stop the shot is only known once the hits are acted on
+    void forEachProjectileHit(BroadPhase.PairVisitor visitor) {
+        for (ProjectileChunk chunk : projectileChunks) {
+            chunk.hits.forEach(visitor);
+        }
+    }
+
+    // Tests the enemy pairs of one broad-phase region
+    private class PairRegion extends RecursiveAction implements BroadPhase.PairVisitor {
+        final int region;
+        final Pairs collisions = new Pairs();
+        int tests;
+
+        PairRegion(int region) {
+            this.region = region;
+        }
+
+        @Override protected void compute() {
+            collisions.clear();
+            tests = 0;
+            broadPhase.forEachPairInRegion(region, this);
+        }
+
+        @Override public void visit(int i, int j) {
+            tests++;
+            if (enemies.get(i).isColliding(enemies.get(j))) {
+                collisions.add(i, j);
+            }
+        }
+    }
+
+    // Tests one run of the projectiles against the players and the enemies near their paths
+    private class ProjectileChunk extends RecursiveAction implements IntConsumer {
+        final int chunk;
+        final Pairs hits = new Pairs();
+        int tests;
+        // The projectile whose nearby enemies are being tested
+        Projectile current;
+        // The enemies it hit so far, in the order it reached them, and how far through the step it did
+        int[] pathHits = new int[8];
+        double[] pathTimes = new double[8];
+        int pathHitCount;
+
+        ProjectileChunk(int chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override protected void compute() {
+            hits.clear();
+            tests = 0;
+            int count = projectiles.size();
+            int from = (int) ((long) count * chunk / projectileChunks.length);
+            int to = (int) ((long) count * (chunk + 1) / projectileChunks.length);
+            for (int p = from; p < to; p++) {
+                Projectile projectile = projectiles.get(p);
+
+                // The same tests as World.checkCollisions, in the same order
+                if (projectile.getVelocityY() > 0 && !projectile.isPlayerProjectile()) {
+                    for (int k = 0; k < players.size(); k++) {
+                        PlayerShip player = players.get(k);
+                        if (!player.isAlive()) continue;
+                        tests++;
+                        if (projectile.isSweptColliding(player)) {
+                            hits.add(p, playerHit(k));
+                            break;
+                        }
+                    }
+                }
+                if (projectile.getVelocityY() < 0 && projectile.isPlayerProjectile()) {
+                    current = projectile;
+                    pathHitCount = 0;
+                    broadPhase.forEachNearPath(projectile, this);
+                    for (int k = 0; k < pathHitCount; k++) {
+                        hits.add(p, pathHits[k]);
+                    }
+                }
+            }
+            current = null;
+        }
+
+        @Override public void accept(int enemy) {
+            tests++;
+            double time = current.getSweptHitTime(enemies.get(enemy));
+            if (time < 0) return;
+
+            // Insert it in order; a path only crosses a few enemies
+            if (pathHitCount == pathHits.length) {
+                pathHits = Arrays.copyOf(pathHits, pathHitCount * 2);
+                pathTimes = Arrays.copyOf(pathTimes, pathHitCount * 2);
+            }
+            int k = pathHitCount++;
+            while (k > 0 && (time < pathTimes[k - 1] || time == pathTimes[k - 1] && enemy < pathHits[k - 1])) {
+                pathHits[k] = pathHits[k - 1];
+                pathTimes[k] = pathTimes[k - 1];
+                k--;
+            }
+            pathHits[k] = enemy;
+            pathTimes[k] = time;
+        }
+    }
+
+    // A growable list of int pairs
+    private static class Pairs {
+        private int[] values = new int[32];
+        private int size;
+
+        void add(int a, int b) {
+            if (size + 2 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = a;
+            values[size++] = b;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void forEach(BroadPhase.PairVisitor visitor) {
+            for (int k = 0; k < size; k += 2) {
+                visitor.visit(values[k], values[k + 1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * Plays the game in place of the keyboard by choosing the player's input for every step
+ */
+@FunctionalInterface
+public interface PlayerController {
+    // Returns the PlayerInput flags to use for the world's next step
+    int decide(World world);
+}
@@ -0,0 +1,19 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * The player's input for one step, packed as bit flags so it can be recorded in a single byte
+ */
+public final class PlayerInput {
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int ROTATE_CLOCKWISE = 1 << 2;
+    public static final int ROTATE_COUNTER_CLOCKWISE = 1 << 3;
+    public static final int SHOOT = 1 << 4;
+
+    private PlayerInput() {}
+
+    // Whether the flag is set in the input
+    public static boolean has(int input, int flag) {
+        return (input & flag) != 0;
+    }
+}
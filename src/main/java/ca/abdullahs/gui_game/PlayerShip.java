@@ -1,7 +1,6 @@
 package ca.abdullahs.gui_game;
 
-import javafx.geometry.Point2D;
-import javafx.scene.image.Image;
+import java.nio.ByteBuffer;
 
 /**
  * The player ship object
@@ -9,40 +8,72 @@ import javafx.scene.image.Image;
 public class PlayerShip extends Ship {
     private static final double PLAYER_SPEED = 5.0;
     private static final double ROTATION_SPEED = 4.0;
+    public static final int MAX_HEALTH = 5;
+    // Size of the player sprite
+    private static final double SPRITE_WIDTH = 60;
+    private static final double SPRITE_HEIGHT = 30;
 
-    public PlayerShip(double x, double y) {
-        super(x, y, PLAYER_SPEED,
-                new Image("/player.png"));
-        health = 5;
+    public PlayerShip(EntityStore store, double x, double y) {
+        super(store, x, y, PLAYER_SPEED, SPRITE_WIDTH, SPRITE_HEIGHT);
+        health = MAX_HEALTH;
+    }
+
+    private PlayerShip(EntityStore store, int slot, int health) {
+        super(store, slot, PLAYER_SPEED, health);
+    }
+
+    /// Checkpoints: the slot and health, as the rest is in the EntityStore
+    void write(ByteBuffer out) {
+        out.putInt(slot);
+        out.putInt(health);
+    }
+
+    static PlayerShip read(EntityStore store, ByteBuffer in) {
+        return new PlayerShip(store, store.claimSlot(in.getInt()), in.getInt());
     }
 
     /// Movement handling
+    // Moves and turns the ship for one step as the PlayerInput flags ask,
+    // where the scale is the length of the step relative to a 60 fps frame
+    public void applyInput(int input, double scale) {
+        boolean movingLeft = PlayerInput.has(input, PlayerInput.LEFT);
+        boolean movingRight = PlayerInput.has(input, PlayerInput.RIGHT);
+        if (movingLeft) moveLeft();
+        if (movingRight) moveRight();
+        if (PlayerInput.has(input, PlayerInput.ROTATE_CLOCKWISE)) rotate(true, scale);
+        if (PlayerInput.has(input, PlayerInput.ROTATE_COUNTER_CLOCKWISE)) rotate(false, scale);
+        if (!movingLeft && !movingRight) stop();
+    }
+
     public void moveLeft() {
-        velocity = new Point2D(-speed, 0);
+        setVelocity(-speed, 0);
     }
 
     public void moveRight() {
-        velocity = new Point2D(speed, 0);
+        setVelocity(speed, 0);
     }
 
-    public void rotate(boolean clockwise) {
-        rotation += clockwise ? ROTATION_SPEED : -ROTATION_SPEED;
-        setRotation(rotation);
+    // Turns the ship for one step, where the scale is the length of the step relative to a 60 fps frame
+    public void rotate(boolean clockwise, double scale) {
+        setRotation(getRotation() + (clockwise ? ROTATION_SPEED : -ROTATION_SPEED) * scale);
     }
 
     // Stop the ship when the game ends
     public void stop() {
-        velocity = new Point2D(0, 0);
+        setVelocity(0, 0);
     }
 
     @Override public void update() {
-        Point2D newPosition = position.add(velocity);
-
-        // Constrain the ship's position to the screen bounds
-        double newX = Math.min(Math.max(newPosition.getX(), width/2), SpaceInvaders.WIDTH - width/2);
-        double newY = Math.min(Math.max(newPosition.getY(), height/2), SpaceInvaders.HEIGHT - height/2);
+        super.update();
+        constrainToScreen();
+    }
 
-        // Set the constrained position
-        setPosition(new Point2D(newX, newY));
+    // Constrain the ship's position to the screen bounds
+    public void constrainToScreen() {
+        double width = getWidth();
+        double height = getHeight();
+        double newX = Math.min(Math.max(getX(), width/2), World.WIDTH - width/2);
+        double newY = Math.min(Math.max(getY(), height/2), World.HEIGHT - height/2);
+        setPosition(newX, newY);
     }
-}
\ No newline at end of file
+}
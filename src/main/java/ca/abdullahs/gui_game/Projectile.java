@@ -1,50 +1,61 @@
 package ca.abdullahs.gui_game;
 
-import javafx.geometry.Point2D;
-import javafx.scene.image.ImageView;
-import javafx.scene.image.Image;
+import java.nio.ByteBuffer;
 
 /**
  * A projectile from either the player or an enemy
  */
 public class Projectile extends GameObject {
     private static final double PROJECTILE_SPEED = 7.0;
-    private static final Image PROJECTILE_SPRITE = new Image("/projectile.png");
+    // Size of the projectile sprite
+    private static final double SPRITE_WIDTH = 10;
+    private static final double SPRITE_HEIGHT = 18;
 
     private boolean isPlayerProjectile;
 
-    public Projectile(double x, double y, double angle, double size, boolean isPlayer) {
-        super(x, y);
+    public Projectile(EntityStore store, double x, double y, double angle, double size, boolean isPlayer) {
+        super(store, x, y);
+        reset(x, y, angle, size, isPlayer);
+    }
 
+    // Sets the projectile up as a new shot, so pooled projectiles can be fired again
+    public void reset(double x, double y, double angle, double size, boolean isPlayer) {
         isPlayerProjectile = isPlayer;
+        setPosition(x, y);
+        setAlive(true);
 
-        // Set up the ImageView with the sprite
-        imageView = new ImageView(PROJECTILE_SPRITE);
-
-        // Scale the image based on the size parameter
-        double scale = size / (PROJECTILE_SPRITE.getWidth() / 2);
-        imageView.setFitWidth(PROJECTILE_SPRITE.getWidth() * scale);
-        imageView.setFitHeight(PROJECTILE_SPRITE.getHeight() * scale);
-        imageView.setPreserveRatio(true);
-
-        // Store scaled dimensions for collision detection
-        width = imageView.getFitWidth();
-        height = imageView.getFitHeight();
-
-        // Center the projectile
-        imageView.setTranslateX(x - width/2);
-        imageView.setTranslateY(y - height/2);
+        // Scale the sprite based on the size parameter
+        double scale = size / (SPRITE_WIDTH / 2);
+        setSize(SPRITE_WIDTH * scale, SPRITE_HEIGHT * scale);
 
-        rotation = angle;
-        imageView.setRotate(rotation);
+        setRotation(angle);
 
         // Convert angle to velocity vector
         double radians = Math.toRadians(angle);
-        velocity = new Point2D(Math.sin(radians) * PROJECTILE_SPEED,
+        setVelocity(Math.sin(radians) * PROJECTILE_SPEED,
                 -Math.cos(radians) * PROJECTILE_SPEED);
+
+        resetInterpolation();
     }
 
+    private Projectile(EntityStore store, int slot, boolean isPlayer) {
+        super(store, slot);
+        isPlayerProjectile = isPlayer;
+    }
+
+    /// Checkpoints: the slot and whose shot it is, as the rest is in the EntityStore
+    void write(ByteBuffer out) {
+        out.putInt(slot);
+        out.put((byte) (isPlayerProjectile ? 1 : 0));
+    }
+
+    static Projectile read(EntityStore store, ByteBuffer in) {
+        return new Projectile(store, store.claimSlot(in.getInt()), in.get() != 0);
+    }
+
+    @Override public int getSprite() { return SpriteIds.PROJECTILE_SPRITE; }
+
     public boolean isPlayerProjectile() {
         return isPlayerProjectile;
     }
-}
\ No newline at end of file
+}
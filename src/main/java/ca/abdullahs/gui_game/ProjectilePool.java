@@ -0,0 +1,78 @@
+package ca.abdullahs.gui_game;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Recycles projectiles, along with their entity slots, instead of creating a new one for every shot
+ */
+public class ProjectilePool {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final EntityStore store;
+    private final int capacity;
+    private final ArrayDeque<Projectile> free;
+
+    // How many shots were served from the pool, and how many needed a new projectile
+    private long hits;
+    private long misses;
+
+    public ProjectilePool(EntityStore store, int capacity) {
+        this.store = store;
+        this.capacity = capacity;
+        free = new ArrayDeque<>(capacity);
+    }
+
+    // Returns a projectile set up for a new shot, reusing a free one if there is one
+    public Projectile obtain(double x, double y, double angle, double size, boolean isPlayer) {
+        Projectile projectile = free.pollLast();
+        if (projectile == null) {
+            misses++;
+            return new Projectile(store, x, y, angle, size, isPlayer);
+        }
+
+        hits++;
+        projectile.reset(x, y, angle, size, isPlayer);
+        return projectile;
+    }
+
+    // Takes back a projectile that has left the world, keeping its slot if there is room in the pool
+    public void free(Projectile projectile) {
+        if (free.size() >= capacity) {
+            projectile.release();
+            return;
+        }
+
+        // A parked projectile keeps its slot but stays still, so integrating it does nothing
+        projectile.setAlive(false);
+        projectile.setVelocity(0, 0);
+        free.addLast(projectile);
+    }
+
+    /// Checkpoints: the parked projectiles in order, and the counters
+    void write(ByteBuffer out) {
+        out.putInt(free.size());
+        for (Projectile projectile : free) {
+            projectile.write(out);
+        }
+        out.putLong(hits);
+        out.putLong(misses);
+    }
+
+    // Replaces the pool's contents with the ones written by write, whose slots are already in the store
+    void read(ByteBuffer in) {
+        free.clear();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            free.addLast(Projectile.read(store, in));
+        }
+        hits = in.getLong();
+        misses = in.getLong();
+    }
+
+    // Getters
+    public int getCapacity() { return capacity; }
+    public int getFreeCount() { return free.size(); }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+}
@@ -0,0 +1,15 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * Shows the state of a world on screen
+ */
+public interface Renderer {
+    // Draws a snapshot of the world, where alpha is how far through the next step the frame is
+    void render(WorldSnapshot snapshot, double alpha);
+
+    // Removes everything this renderer has drawn
+    void clear();
+
+    // Takes the renderer off the screen for good, e.g. when switching to another renderer
+    void dispose();
+}
@@ -0,0 +1,96 @@
+package ca.abdullahs.gui_game;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Plays back a game recorded by InputRecorder as fast as possible,
+ * checking that the state after every step hashes the same as it did when recorded
+ *
+ * Usage: Replay <recording>...
+ */
+public class Replay {
+    // The number of steps replayed, and the first step whose state didn't match (or -1)
+    private long ticks;
+    private long firstMismatch = -1;
+
+    public static void main(String[] args) throws IOException {
+        boolean allMatched = true;
+        for (String file : args) {
+            long start = System.nanoTime();
+            Replay replay = play(Files.newInputStream(Path.of(file)));
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            if (replay.matched()) {
+                System.out.printf("%s: %,d ticks matched (%,.0f ticks/s)%n", file, replay.ticks, replay.ticks / seconds);
+            } else {
+                System.out.printf("%s: state diverged at tick %,d%n", file, replay.firstMismatch);
+                allMatched = false;
+            }
+        }
+        if (!allMatched) {
+            System.exit(1);
+        }
+    }
+
+    // Replays a recording, stopping at the first step whose state doesn't match
+    public static Replay play(InputStream recording) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(recording))) {
+            if (in.readInt() != InputRecorder.MAGIC) {
+                throw new IOException("Not a recording");
+            }
+            int version = in.readUnsignedByte();
+            if (version != InputRecorder.VERSION) {
+                throw new IOException("Unsupported recording version " + version);
+            }
+            long seed = in.readLong();
+            GameConfig config = new GameConfig(in.readInt(), in.readInt(),
+                    in.readDouble(), in.readDouble(), in.readDouble(), in.readLong(),
+                    in.readInt(), WaveScript.parse(readString(in)));
+
+            World world = new World(config, new UniformGridBroadPhase(), seed);
+            Replay replay = new Replay();
+            while (true) {
+                int input;
+                int hash;
+                try {
+                    input = in.readUnsignedByte();
+                    hash = in.readInt();
+                } catch (EOFException e) {
+                    return replay; // The end of the recording
+                }
+
+                world.setInput(input);
+                world.step();
+                replay.ticks++;
+                if ((int) world.stateHash() != hash) {
+                    replay.firstMismatch = world.getTick();
+                    return replay;
+                }
+            }
+        }
+    }
+
+    // Reads a string written as its length in bytes followed by its UTF-8 encoding
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Bad string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Whether every replayed step matched the recording
+    public boolean matched() { return firstMismatch < 0; }
+
+    public long getTicks() { return ticks; }
+    public long getFirstMismatch() { return firstMismatch; }
+}
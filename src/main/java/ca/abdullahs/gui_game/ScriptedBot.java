@@ -0,0 +1,65 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * A simple scripted player that turns towards the nearest enemy and shoots at it,
+ * and sidesteps enemy projectiles coming down at it
+ */
+public class ScriptedBot implements PlayerController {
+    // How far off target, in degrees, the ship may point before it turns, and before it stops shooting
+    private static final double AIM_TOLERANCE = 4;
+    private static final double SHOOT_TOLERANCE = 10;
+    // Steps between shots, so the bot fires at a rate a person could
+    private static final int SHOT_INTERVAL = 10;
+    // How close an incoming projectile gets before the bot moves out of the way
+    private static final double DANGER_DISTANCE = 150;
+
+    @Override public int decide(World world) {
+        PlayerShip player = world.getPlayer();
+        int input = 0;
+
+        // Turn towards the nearest enemy and shoot once lined up
+        EnemyShip target = null;
+        double targetDistance = Double.MAX_VALUE;
+        for (EnemyShip enemy : world.getEnemies()) {
+            double distance = distanceSquared(player, enemy);
+            if (distance < targetDistance) {
+                target = enemy;
+                targetDistance = distance;
+            }
+        }
+        if (target != null) {
+            double angle = Math.toDegrees(Math.atan2(target.getX() - player.getX(), player.getY() - target.getY()));
+            double error = ((angle - player.getRotation()) % 360 + 540) % 360 - 180; // -180 to 180
+            if (error > AIM_TOLERANCE) input |= PlayerInput.ROTATE_CLOCKWISE;
+            if (error < -AIM_TOLERANCE) input |= PlayerInput.ROTATE_COUNTER_CLOCKWISE;
+            if (Math.abs(error) < SHOOT_TOLERANCE && world.getTick() % SHOT_INTERVAL == 0) {
+                input |= PlayerInput.SHOOT;
+            }
+        }
+
+        // Step away from the closest enemy projectile that is coming down towards the ship
+        Projectile threat = null;
+        double threatDistance = DANGER_DISTANCE * DANGER_DISTANCE;
+        for (Projectile projectile : world.getProjectiles()) {
+            if (projectile.isPlayerProjectile() || projectile.getY() > player.getY()) continue;
+
+            double distance = distanceSquared(player, projectile);
+            if (distance < threatDistance) {
+                threat = projectile;
+                threatDistance = distance;
+            }
+        }
+        if (threat != null) {
+            boolean roomOnRight = player.getX() < World.WIDTH - player.getWidth();
+            boolean dodgeRight = threat.getX() < player.getX() ? roomOnRight : player.getX() < player.getWidth();
+            input |= dodgeRight ? PlayerInput.RIGHT : PlayerInput.LEFT;
+        }
+        return input;
+    }
+
+    private static double distanceSquared(GameObject a, GameObject b) {
+        double dx = a.getX() - b.getX();
+        double dy = a.getY() - b.getY();
+        return dx * dx + dy * dy;
+    }
+}
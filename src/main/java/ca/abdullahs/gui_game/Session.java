@@ -0,0 +1,56 @@
+package ca.abdullahs.gui_game;
+
+import java.util.Comparator;
+
+/**
+ * The outcome of one finished game, as kept in a SessionLog
+ */
+public final class Session {
+    /// Who played the game
+    public static final int KEYBOARD = 0;
+    public static final int AGENT = 1;
+    public static final int BOT = 2;
+    public static final int IDLE = 3;
+
+    // Best first: the highest score, then the longest survival, then the earliest to get there
+    public static final Comparator<Session> BEST_FIRST = Comparator.comparingInt(Session::getScore).reversed()
+            .thenComparing(Comparator.comparingLong(Session::getTicks).reversed())
+            .thenComparingLong(Session::getEndedAt);
+
+    private final long endedAt;
+    private final long seed;
+    private final long ticks;
+    private final int tickRate;
+    private final int score;
+    private final int kills;
+    private final int damageTaken;
+    private final int player;
+
+    public Session(long endedAt, long seed, long ticks, int tickRate, int score, int kills, int damageTaken, int player) {
+        this.endedAt = endedAt;
+        this.seed = seed;
+        this.ticks = ticks;
+        this.tickRate = tickRate;
+        this.score = score;
+        this.kills = kills;
+        this.damageTaken = damageTaken;
+        this.player = player;
+    }
+
+    // The outcome of a world's game so far, ending now
+    public static Session of(World world, int player) {
+        return new Session(System.currentTimeMillis(), world.getSeed(), world.getTick(),
+                world.getConfig().getTickRate(), world.getScore(), world.getKills(), world.getDamageTaken(), player);
+    }
+
+    // When the game ended, in milliseconds since the epoch
+    public long getEndedAt() { return endedAt; }
+    public long getSeed() { return seed; }
+    public long getTicks() { return ticks; }
+    public int getTickRate() { return tickRate; }
+    public int getScore() { return score; }
+    public int getKills() { return kills; }
+    public int getDamageTaken() { return damageTaken; }
+    public int getPlayer() { return player; }
+    public double getSurvivalSeconds() { return (double) ticks / tickRate; }
+}
@@ -0,0 +1,103 @@
+package ca.abdullahs.gui_game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A SessionLog kept on a thread of its own, for the FX thread: opening the log, which reads through every
+ * record to find the best, and appending to it both happen there, so neither holds up a frame or the
+ * game over screen. The best sessions are published after each change for any thread to read
+ */
+public class SessionHistory implements Closeable {
+    // How long close waits for the sessions still to be written
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session log");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Only used on the writer thread, null until opened or if it couldn't be
+    private SessionLog log;
+    private volatile List<Session> topSessions = List.of();
+    private volatile long count;
+    // The first failure to open or write the log, e.g. it's held by another game or full, which close reports
+    private volatile Exception failure;
+
+    // Starts opening the log, keeping the given number of best sessions
+    public SessionHistory(Path file, int topCapacity) {
+        writer.execute(() -> {
+            try {
+                log = new SessionLog(file, topCapacity);
+                publish();
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            }
+        });
+    }
+
+    // Adds a finished game to the log, without waiting for it to be written
+    public void add(Session session) {
+        writer.execute(() -> {
+            if (log == null) return;
+            try {
+                log.append(session);
+                publish();
+            } catch (IOException | RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        });
+    }
+
+    private void publish() {
+        topSessions = List.copyOf(log.getTopSessions());
+        count = log.getCount();
+    }
+
+    // The best sessions written so far, best first, which may not yet include the latest
+    public List<Session> getTopSessions() { return topSessions; }
+    public long getCount() { return count; }
+
+    // The best sessions as they'll be once the given one is written, for showing it among them straight away
+    public List<Session> getTopSessionsWith(Session session, int limit) {
+        List<Session> sessions = new ArrayList<>(topSessions);
+        if (!sessions.contains(session)) {
+            sessions.add(session);
+        }
+        sessions.sort(Session.BEST_FIRST);
+        return sessions.subList(0, Math.min(limit, sessions.size()));
+    }
+
+    // Writes the sessions still waiting and closes the log
+    @Override public void close() throws IOException {
+        writer.execute(() -> {
+            if (log == null) return;
+            try {
+                log.close();
+            } catch (IOException | RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+}
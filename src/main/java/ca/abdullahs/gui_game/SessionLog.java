@@ -0,0 +1,238 @@
+package ca.abdullahs.gui_game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of every finished game, one fixed-size record each, written through a memory-mapped
+ * buffer so appending is a few stores with no system call, and keeping the best games in memory.
+ * Safe to use from several threads, e.g. the games of a BatchRunner, but only one process may have a log open
+ * at a time, which a lock on the file enforces
+ *
+ * Each record carries a checksum, and the header the number of records written, updated after each record.
+ * A record that reached the mapping survives the process crashing, so when a log is opened after a crash
+ * only the end needs checking: records past the count that are complete are kept, and a torn last record
+ * is dropped. The mapping is flushed to disk on close, so a power cut can lose the latest records
+ *
+ * Format: a HEADER_SIZE byte header of the MAGIC number (int), VERSION (int), RECORD_SIZE (int),
+ * and at COUNT_OFFSET the number of records (long), then the records, each the time the game ended (long),
+ * seed (long), ticks survived (long), tick rate, score, kills, damage taken, player (ints),
+ * and a CRC32 of the rest of the record (int). The file is grown ahead of the records in doubling steps
+ */
+public class SessionLog implements Closeable {
+    public static final int MAGIC = 0x53494c47; // "SILG"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 48;
+    private static final int COUNT_OFFSET = 16;
+    private static final int CHECKSUM_OFFSET = RECORD_SIZE - 4;
+    // Room for this many records in a new file
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private long capacity;
+    private long count;
+    // Records found past the count, or dropped as torn, when the log was opened
+    private final long recovered;
+
+    /// The best sessions, best first
+    private final Session[] top;
+    private int topCount;
+
+    /// Reused to build and check records
+    private final ByteBuffer record = ByteBuffer.allocate(CHECKSUM_OFFSET);
+    private final CRC32 crc = new CRC32();
+
+    // Opens the log, creating it if it doesn't exist, and finds the given number of best sessions in it
+    public SessionLog(Path file, int topCapacity) throws IOException {
+        if (topCapacity <= 0) {
+            throw new IllegalArgumentException("The number of best sessions kept must be positive");
+        }
+        top = new Session[topCapacity];
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // Held until the channel is closed
+            boolean locked;
+            try {
+                locked = channel.tryLock() != null;
+            } catch (OverlappingFileLockException e) {
+                locked = false;
+            }
+            if (!locked) {
+                throw new IllegalStateException("The session log " + file + " is already open, e.g. in another game");
+            }
+
+            long size = channel.size();
+            if (size == 0) {
+                map(INITIAL_CAPACITY);
+                map.putInt(0, MAGIC);
+                map.putInt(4, VERSION);
+                map.putInt(8, RECORD_SIZE);
+            } else {
+                if (size < HEADER_SIZE) {
+                    throw new IllegalArgumentException("Not a session log");
+                }
+                map((size - HEADER_SIZE) / RECORD_SIZE);
+                readHeader();
+            }
+            long written = map.getLong(COUNT_OFFSET);
+            count = recover(Math.max(0, Math.min(written, capacity)));
+            recovered = Math.abs(count - written);
+            if (count != written) {
+                map.putLong(COUNT_OFFSET, count);
+            }
+            index();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void readHeader() {
+        if (map.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a session log");
+        }
+        int version = map.getInt(4);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported session log version " + version);
+        }
+        if (map.getInt(8) != RECORD_SIZE) {
+            throw new IllegalArgumentException("Bad record size " + map.getInt(8));
+        }
+    }
+
+    // Maps the header and room for the given number of records, growing the file if needed
+    private void map(long records) throws IOException {
+        long bytes = HEADER_SIZE + records * RECORD_SIZE;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The session log is full");
+        }
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        capacity = records;
+    }
+
+    // Finds where the records really end, starting from the count in the header:
+    // back past any torn records, then on past any whole records written after the count
+    private long recover(long end) {
+        while (end > 0 && !isComplete(end - 1)) {
+            end--;
+        }
+        while (end < capacity && isComplete(end)) {
+            end++;
+        }
+        // Clear what's left of a torn record, so it can't be taken for one later
+        if (end < capacity) {
+            map.put(position(end), new byte[RECORD_SIZE]);
+        }
+        return end;
+    }
+
+    // Whether the record was written out whole
+    private boolean isComplete(long index) {
+        int position = position(index);
+        map.get(position, record.array());
+        crc.reset();
+        crc.update(record.array());
+        return (int) crc.getValue() == map.getInt(position + CHECKSUM_OFFSET);
+    }
+
+    // Builds the index of the best sessions from every record, only reading the rest of a record
+    // whose score could put it among them
+    private void index() {
+        for (long i = 0; i < count; i++) {
+            int position = position(i);
+            if (topCount == top.length && map.getInt(position + 28) < top[topCount - 1].getScore()) continue;
+            rank(read(i));
+        }
+    }
+
+    // Adds a finished game to the end of the log
+    public synchronized void append(Session session) throws IOException {
+        if (count == capacity) {
+            map(capacity * 2);
+        }
+        record.clear();
+        record.putLong(session.getEndedAt())
+                .putLong(session.getSeed())
+                .putLong(session.getTicks())
+                .putInt(session.getTickRate())
+                .putInt(session.getScore())
+                .putInt(session.getKills())
+                .putInt(session.getDamageTaken())
+                .putInt(session.getPlayer());
+        crc.reset();
+        crc.update(record.array());
+
+        // The record before the count, so the count never covers a record that isn't there
+        int position = position(count);
+        map.put(position, record.array());
+        map.putInt(position + CHECKSUM_OFFSET, (int) crc.getValue());
+        count++;
+        map.putLong(COUNT_OFFSET, count);
+        rank(session);
+    }
+
+    // Puts the session into the best sessions if it's good enough
+    private void rank(Session session) {
+        int at = Arrays.binarySearch(top, 0, topCount, session, Session.BEST_FIRST);
+        if (at < 0) {
+            at = -at - 1;
+        }
+        if (at >= top.length) return;
+
+        int moved = Math.min(topCount, top.length - 1) - at;
+        System.arraycopy(top, at, top, at + 1, moved);
+        top[at] = session;
+        topCount = Math.min(topCount + 1, top.length);
+    }
+
+    // The session at a position in the log, from 0 for the first game written
+    public synchronized Session read(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("No session " + index + " in a log of " + count);
+        }
+        int position = position(index);
+        return new Session(map.getLong(position), map.getLong(position + 8), map.getLong(position + 16),
+                map.getInt(position + 24), map.getInt(position + 28), map.getInt(position + 32),
+                map.getInt(position + 36), map.getInt(position + 40));
+    }
+
+    private static int position(long index) {
+        return (int) (HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    // The best sessions in the log, best first
+    public synchronized List<Session> getTopSessions() {
+        return new ArrayList<>(Arrays.asList(top).subList(0, topCount));
+    }
+
+    public synchronized long getCount() { return count; }
+    // Records found past the count, or dropped as torn, when the log was opened
+    public long getRecovered() { return recovered; }
+
+    // Writes the records so far to disk
+    public synchronized void flush() {
+        map.force();
+    }
+
+    @Override public synchronized void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+}
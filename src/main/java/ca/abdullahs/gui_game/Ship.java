@@ -1,8 +1,5 @@
 package ca.abdullahs.gui_game;
 
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-
 /**
  * Abstract class for the player and enemy ships
  */
@@ -10,16 +7,18 @@ public abstract class Ship extends GameObject {
     protected int health;
     protected double speed;
 
-    public Ship(double x, double y, double speed, Image sprite) {
-        super(x, y);
+    public Ship(EntityStore store, double x, double y, double speed, double width, double height) {
+        super(store, x, y);
         this.speed = speed;
-        imageView = new ImageView(sprite);
-        width = sprite.getWidth();
-        height = sprite.getHeight();
-        imageView.setPreserveRatio(true);
+        setSize(width, height);
+    }
 
-        // Center the sprite's pivot point
-        imageView.setTranslateX(x - width/2);
-        imageView.setTranslateY(y - height/2);
+    // Takes over a slot restored from a checkpoint
+    protected Ship(EntityStore store, int slot, double speed, int health) {
+        super(store, slot);
+        this.speed = speed;
+        this.health = health;
     }
-}
\ No newline at end of file
+
+    public int getHealth() { return health; }
+}
@@ -0,0 +1,123 @@
+package ca.abdullahs.gui_game;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a world on its own thread at its fixed tick rate, so a slow step never holds up the UI.
+ * Snapshots are handed to the UI through a lock-free triple buffer, and input is passed across through
+ * a lock-free queue. The world's events can be read from the UI through its GameEvents ring
+ */
+public class SimulationThread {
+    private final World world;
+    private final Runnable step;
+    // The most steps the thread runs back to back to catch up before it drops the backlog
+    private final int maxCatchUpSteps;
+    private final Thread thread;
+    private volatile boolean running;
+
+    // Input changes waiting for the next step, each a PlayerInput flag, negated when it's released
+    private final ConcurrentLinkedQueue<Integer> inputs = new ConcurrentLinkedQueue<>();
+
+    /// Triple buffer: the simulation writes into one snapshot while the UI reads another,
+    /// and the newest finished one waits in the middle to be swapped for whichever side wants it
+    private final AtomicReference<WorldSnapshot> middle;
+    // The tick of the newest snapshot swapped into the middle
+    private final AtomicLong published = new AtomicLong();
+    private WorldSnapshot writing = new WorldSnapshot();
+    private WorldSnapshot reading = new WorldSnapshot();
+
+    // Runs the world with the given step, e.g. one that records it, catching up at most
+    // the given number of steps at a time
+    public SimulationThread(World world, Runnable step, int maxCatchUpSteps) {
+        this.world = world;
+        this.step = step;
+        this.maxCatchUpSteps = maxCatchUpSteps;
+
+        // Start with every buffer showing the world as it is
+        WorldSnapshot first = new WorldSnapshot();
+        first.capture(world);
+        middle = new AtomicReference<>(first);
+        published.set(first.getTick());
+        reading.capture(world);
+
+        thread = new Thread(this::run, "simulation");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    // Stops the thread and waits for it to finish its current step
+    public void stop() {
+        running = false;
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        long stepNanos = world.getStepNanos();
+        long next = System.nanoTime();
+        while (running && !world.isGameOver()) {
+            applyInputs();
+
+            long start = System.nanoTime();
+            step.run();
+            long end = System.nanoTime();
+            publish(end - start);
+
+            // Sleep until the next step is due, or give up on a backlog too big to catch up on
+            next += stepNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else if (-wait > maxCatchUpSteps * stepNanos) {
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    // Applies the input changes queued since the last step
+    private void applyInputs() {
+        Integer change;
+        while ((change = inputs.poll()) != null) {
+            int input = world.getInput();
+            world.setInput(change > 0 ? input | change : input & ~-change);
+        }
+    }
+
+    // Captures the world into the write buffer and swaps it into the middle
+    private void publish(long stepNanos) {
+        writing.capture(world);
+        writing.setLastStepNanos(stepNanos);
+        long tick = writing.getTick();
+        writing = middle.getAndSet(writing);
+        published.set(tick);
+    }
+
+    /// Called from the UI thread
+
+    // The newest snapshot published, which stays the caller's to read until the next call
+    public WorldSnapshot latest() {
+        // Only swap for something newer: the newest snapshot may have been taken before it was
+        // announced, leaving an older one in the middle
+        if (published.get() > reading.getTick()) {
+            reading = middle.getAndSet(reading);
+        }
+        return reading;
+    }
+
+    // Sets or clears a PlayerInput flag from the next step on
+    public void setInput(int flag, boolean on) {
+        inputs.add(on ? flag : -flag);
+    }
+}
@@ -2,16 +2,27 @@ package ca.abdullahs.gui_game;
 
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
-import javafx.scene.image.ImageView;
 import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
+import javafx.scene.text.Font;
 import javafx.scene.text.Text;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
 import java.util.Random;
 
 /**
@@ -19,37 +30,80 @@ import java.util.Random;
  */
 public class SpaceInvaders extends Application {
     /// Constants
-    public static final int WIDTH = 800;
-    public static final int HEIGHT = 600;
-    private static final double INITIAL_SPAWN_INTERVAL = 2.0; // seconds
-    private static final Image GAME_OVER_SPRITE = new Image("/game_over.png");
-    private static final Random random = new Random();
+    public static final int WIDTH = World.WIDTH;
+    public static final int HEIGHT = World.HEIGHT;
+    // The most steps a slow frame may run to catch up
+    private static final int MAX_CATCH_UP_STEPS = 5;
+    // How often the metrics overlay is refreshed
+    private static final long OVERLAY_REFRESH_NANOS = 500_000_000L;
+    // Room for the events of many frames, even in a crowded field
+    private static final int EVENT_CAPACITY = 1 << 14;
+    // Recording with --capture: frames per second unless --capture-fps is given, threads writing the frames,
+    // and the frames that may wait to be written before more are dropped
+    private static final double DEFAULT_CAPTURE_FPS = 30;
+    private static final int CAPTURE_WRITERS = 2;
+    private static final int CAPTURE_BUFFERS = 8;
+    // The best games kept in memory from the session log, and how many the game over screen shows
+    private static final int TOP_SESSIONS = 10;
+    private static final int SHOWN_SESSIONS = 5;
 
     /// Game UI
     private Pane root;
+    // Layers under the HUD and menus: explosions at the back, then the game objects
+    private Pane effectsLayer;
+    private Pane objectLayer;
+    private ExplosionLayer explosions;
     private Button restartButton;
-    private PlayerShip player;
-    private List<EnemyShip> enemies;
-    private List<Projectile> projectiles;
-    private List<Text> healthDisplay;
+    private Renderer renderer;
+    // Where the renderers draw sprites from, packed into one texture when --atlas is given
+    private SpriteAtlas atlas;
+    private Hud hud;
+    // Frame and phase timings, shown with F3
+    private Text metricsOverlay;
+    private long lastOverlayRefresh;
 
     /// Game state
-    // The time when the game started
-    private long startTime;
-    // The time when the last enemy was spawned
-    private long lastSpawnTime;
-    // Whether the next enemy should spawn on the left or right
-    private boolean enemySpawnOnLeft = true;
-    // Whether the game is over
-    private boolean gameOver = false;
-    // Whether the player is rotating clockwise
-    private boolean rotatingClockwise = false;
-    // Whether the player is rotating counter-clockwise
-    private boolean rotatingCounterClockwise = false;
-    // Whether the player is moving left
-    private boolean movingLeft = false;
-    // Whether the player is moving right
-    private boolean movingRight = false;
+    // The simulation being shown
+    private World world;
+    // What the renderers draw from: copied from the world every frame, or handed over by the
+    // simulation thread when --threaded is given
+    private WorldSnapshot snapshot = new WorldSnapshot();
+    private final WorldSnapshot frameSnapshot = snapshot;
+    private boolean threaded;
+    private SimulationThread simulation;
+    // The server being played on when --connect=<host:port> is given, in place of a local world
+    private GameClient client;
+    private final Runnable clientStep = this::clientStep;
+    // Simulation steps per second of local games, independent of the display's refresh rate,
+    // set with --tick-rate=<n>, and the loop running the simulation at it from the animation pulses
+    private int tickRate = World.DEFAULT_TICK_RATE;
+    private FixedTimestepLoop loop;
+    private final Runnable step = this::step;
+    // Records each game's inputs for Replay when --record=<directory> is given
+    private InputRecorder recorder;
+    private final FrameMetrics metrics = new FrameMetrics();
+    // The last checkpoint saved with F5, which F9 goes back to
+    private ByteBuffer checkpoint;
+    // The events of every game played, whether stepped here, on the simulation thread or on a server.
+    // Explosions and the game over screen are driven from them once per frame,
+    // and they are written to a file when --events=<file> is given
+    private final GameEvents events = new GameEvents(EVENT_CAPACITY);
+    private final GameEvents.Cursor frameEvents = events.newCursor();
+    private final GameEvents.Handler eventHandler = this::handleEvent;
+    private EventLog eventLog;
+    // Startup timing: pulses since the window opened, the first one's time, and how long to run before
+    // quitting when --quit-after=<seconds> is given, or -1 to keep running
+    private int pulses;
+    private long firstPulse;
+    private long quitAfterNanos = -1;
+    // Plays in place of the arrow keys and spacebar when --player=agent is given
+    private boolean agentPlaying;
+    private PlayerController controller;
+    // Records every frame shown to a directory of images when --capture=<directory> is given
+    private FrameCapture capture;
+    // Every local game's outcome, kept in --sessions=<file> or else in the user's home directory
+    private SessionHistory sessions;
+    private Session lastSession;
 
     // Start the game
     @Override public void start(Stage stage) {
@@ -58,6 +112,69 @@ public class SpaceInvaders extends Application {
         stage.setScene(scene);
         stage.setTitle("Space Invaders");
 
+        // Only the game object sprites are decoded before the first frame, the rest follow in the background
+        atlas = getParameters().getUnnamed().contains("--atlas") ? Sprites.packed() : Sprites.separate();
+        Sprites.loadInBackground();
+        threaded = getParameters().getUnnamed().contains("--threaded");
+        agentPlaying = "agent".equals(getParameters().getNamed().get("player"));
+        String quitAfter = getParameters().getNamed().get("quit-after");
+        if (quitAfter != null) {
+            quitAfterNanos = (long) (Double.parseDouble(quitAfter) * 1e9);
+        }
+
+        effectsLayer = createLayer();
+        objectLayer = createLayer();
+        root.getChildren().addAll(effectsLayer, objectLayer);
+        explosions = new ExplosionLayer(effectsLayer);
+
+        // Draw with one node per object unless the canvas renderer was asked for
+        renderer = createRenderer("canvas".equals(getParameters().getNamed().get("renderer")));
+        hud = new Hud(root);
+
+        metricsOverlay = new Text(WIDTH - 330, 20, "");
+        metricsOverlay.setFont(Font.font("Monospaced", 11));
+        metricsOverlay.setFill(Color.WHITE);
+        metricsOverlay.setVisible(false);
+        root.getChildren().add(metricsOverlay);
+
+        String eventFile = getParameters().getNamed().get("events");
+        if (eventFile != null) {
+            try {
+                eventLog = new EventLog(events, Files.newBufferedWriter(Path.of(eventFile)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        String captureDirectory = getParameters().getNamed().get("capture");
+        if (captureDirectory != null) {
+            String fps = getParameters().getNamed().get("capture-fps");
+            try {
+                capture = new FrameCapture(Path.of(captureDirectory),
+                        fps == null ? DEFAULT_CAPTURE_FPS : Double.parseDouble(fps), CAPTURE_WRITERS, CAPTURE_BUFFERS);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        String sessionFile = getParameters().getNamed().get("sessions");
+        sessions = new SessionHistory(sessionFile != null ? Path.of(sessionFile)
+                : Path.of(System.getProperty("user.home"), ".space-invaders", "sessions.log"), TOP_SESSIONS);
+
+        // A server runs its games at its own tick rate
+        String server = getParameters().getNamed().get("connect");
+        String rate = getParameters().getNamed().get("tick-rate");
+        if (rate != null && server == null) {
+            tickRate = Integer.parseInt(rate);
+            if (tickRate <= 0) {
+                throw new IllegalArgumentException("The tick rate must be positive");
+            }
+        }
+        loop = new FixedTimestepLoop(tickRate, MAX_CATCH_UP_STEPS);
+        if (server != null) {
+            connect(server);
+        }
+
         initGame();
         setupInputHandling(scene);
         startGameLoop();
@@ -65,90 +182,233 @@ public class SpaceInvaders extends Application {
         stage.show();
     }
 
+    // Joins the server at host:port, whose snapshots are shown instead of a local world
+    private void connect(String server) {
+        int colon = server.lastIndexOf(':');
+        InetSocketAddress address = colon < 0
+                ? new InetSocketAddress(server, NetProtocol.DEFAULT_PORT)
+                : new InetSocketAddress(server.substring(0, colon), Integer.parseInt(server.substring(colon + 1)));
+        try {
+            client = new GameClient(address);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        client.setEvents(events);
+    }
+
+    // Leaves the server, if playing on one, and finishes the session log, event log and recording
+    // when the window is closed
+    @Override public void stop() throws IOException {
+        if (client != null) {
+            client.close();
+        }
+        // The game goes on without its history if the log couldn't be kept, e.g. while another game has it open
+        try {
+            sessions.close();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Couldn't keep the session history: " + e.getMessage());
+        }
+        if (eventLog != null) {
+            eventLog.close();
+        }
+        if (capture != null) {
+            capture.close();
+            System.out.println(capture.summary());
+        }
+    }
+
+    // Creates either the canvas renderer or the node-per-object renderer
+    private Renderer createRenderer(boolean canvas) {
+        return canvas
+                ? new CanvasRenderer(objectLayer, atlas)
+                : new NodeRenderer(objectLayer, atlas, ProjectilePool.DEFAULT_CAPACITY);
+    }
+
+    // Creates a full-screen layer that lets clicks through to the controls above it
+    private Pane createLayer() {
+        Pane layer = new Pane();
+        layer.setPrefSize(WIDTH, HEIGHT);
+        layer.setMouseTransparent(true);
+        return layer;
+    }
+
+    // Swaps between the canvas and node renderers while the game is running
+    private void switchRenderer() {
+        renderer.dispose();
+        renderer = createRenderer(!(renderer instanceof CanvasRenderer));
+        renderer.render(snapshot, 0);
+    }
+
     // Called whenever a new game is started
     private void initGame() {
         root.setStyle("-fx-background-color: black;");
 
-        enemies = new ArrayList<>();
-        projectiles = new ArrayList<>();
-        healthDisplay = new ArrayList<>();
-        startTime = System.nanoTime();
-        gameOver = false;
-
         // Remove old game objects if they exist
-        if (player != null) {
-            root.getChildren().remove(player.getImageView());
-        }
+        renderer.clear();
         if (restartButton != null) {
             root.getChildren().remove(restartButton);
         }
 
-        // Initialize player
-        player = new PlayerShip(WIDTH / 2, HEIGHT - 50);
-        root.getChildren().add(player.getImageView());
+        // The server starts its own new games
+        if (client != null) {
+            loop.reset();
+            metrics.reset();
+            snapshot = frameSnapshot;
+            client.fill(snapshot);
+            renderer.render(snapshot, 0);
+            hud.reset();
+            hud.update(snapshot);
+            return;
+        }
 
-        updateHealthDisplay();
+        // Start a new simulation, from --seed=<n> if one was given, and react to its events
+        stopSimulation();
+        String seed = getParameters().getNamed().get("seed");
+        world = new World(GameConfig.DEFAULT.withTickRate(tickRate), new UniformGridBroadPhase(),
+                seed != null ? Long.parseLong(seed) : new Random().nextLong());
+        world.setProfiling(true);
+        controller = agentPlaying ? new AgentController(new GreedyAgent()) : null;
+        loop.reset();
+        metrics.reset();
+        startRecording();
+        world.setEvents(events);
+
+        // Either run the world on its own thread, or step it from the frame loop
+        if (threaded) {
+            simulation = new SimulationThread(world, this::advanceWorld, MAX_CATCH_UP_STEPS);
+            snapshot = simulation.latest();
+            simulation.start();
+        } else {
+            snapshot = frameSnapshot;
+            snapshot.capture(world);
+        }
+        renderer.render(snapshot, 0);
+
+        hud.reset();
+        hud.update(snapshot);
+    }
+
+    // Starts recording the new game if recordings were asked for
+    private void startRecording() {
+        stopRecording();
+        String directory = getParameters().getNamed().get("record");
+        if (directory == null) return;
+
+        try {
+            Path file = Files.createDirectories(Path.of(directory)).resolve("replay-" + world.getSeed() + ".bin");
+            recorder = new InputRecorder(Files.newOutputStream(file), world);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    // Returns a multiplier based on how long the current game has been going
-    private double getGameTimeMultiplier() {
-        return (System.nanoTime() - startTime) / 1e11; // Increases by 1 every 10 seconds
+    // Stops the simulation thread, if there is one, so the world is only touched from this thread
+    private void stopSimulation() {
+        if (simulation == null) return;
+
+        // Keep showing where the world ended up
+        simulation.stop();
+        snapshot = simulation.latest();
+        simulation = null;
+    }
+
+    // Finishes the current recording, if there is one
+    private void stopRecording() {
+        if (recorder == null) return;
+
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        recorder = null;
     }
 
-    // Returns the interval after which the next enemy can spawn
-    private double getCurrentSpawnInterval() {
-        // Spawn interval decreases over time (enemies spawn faster)
-        return INITIAL_SPAWN_INTERVAL - Math.pow(1 + getGameTimeMultiplier(), 1.2);
+    // Saves the world as it is now, and to a file if --checkpoints=<directory> was given.
+    // Only a world stepped from the frame loop can be saved, as the simulation thread owns its world
+    private void saveCheckpoint() {
+        if (world == null || simulation != null || client != null) return;
+
+        checkpoint = Checkpoint.save(world, checkpoint);
+        String directory = getParameters().getNamed().get("checkpoints");
+        if (directory == null) return;
+
+        try {
+            Path folder = Files.createDirectories(Path.of(directory));
+            Checkpoint.write(checkpoint, folder.resolve("checkpoint-" + world.getSeed() + "-" + world.getTick() + ".bin"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    // Renders the health display based on the player's current health
-    private void updateHealthDisplay() {
-        root.getChildren().removeAll(healthDisplay);
-        healthDisplay.clear();
+    // Puts the world back to the last checkpoint saved. The recording stops there,
+    // as a replay from the start could no longer reach the restored state
+    private void loadCheckpoint() {
+        if (checkpoint == null || simulation != null || client != null) return;
+
+        stopRecording();
+        Checkpoint.restore(checkpoint.duplicate(), world);
+        loop.reset();
+        snapshot.capture(world);
+        renderer.render(snapshot, 0);
+        hud.update(snapshot);
+    }
 
-        for (int i = 0; i < player.health; i++) {
-            Text heart = new Text(10 + i * 20, 20, "♥");
-            heart.setFill(Color.RED);
-            healthDisplay.add(heart);
-            root.getChildren().add(heart);
+    // Writes the game's metrics as CSV and JSON if --metrics=<directory> was given
+    private void exportMetrics() {
+        String directory = getParameters().getNamed().get("metrics");
+        if (directory == null) return;
+
+        try {
+            Path folder = Files.createDirectories(Path.of(directory));
+            metrics.writeCsv(folder.resolve("metrics-" + world.getSeed() + ".csv"));
+            metrics.writeJson(folder.resolve("metrics-" + world.getSeed() + ".json"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    // Handles player arrow key & spacebar input
+    // Handles player arrow key & spacebar input, R to switch renderers, F3 for the metrics overlay
+    // and F5 and F9 to save and go back to a checkpoint
     private void setupInputHandling(Scene scene) {
         scene.setOnKeyPressed(e -> {
-            if (gameOver) return;
+            if (e.getCode() == KeyCode.R) switchRenderer();
+            if (e.getCode() == KeyCode.F3) metricsOverlay.setVisible(!metricsOverlay.isVisible());
+            if (snapshot.isGameOver()) return;
+            if (e.getCode() == KeyCode.F5) saveCheckpoint();
+            if (e.getCode() == KeyCode.F9) loadCheckpoint();
 
             switch (e.getCode()) {
-                case LEFT: movingLeft = true; break;
-                case RIGHT: movingRight = true; break;
-                case UP: rotatingClockwise = true; break;
-                case DOWN: rotatingCounterClockwise = true; break;
-                case SPACE: playerShoot(); break;
+                case LEFT: setInput(PlayerInput.LEFT, true); break;
+                case RIGHT: setInput(PlayerInput.RIGHT, true); break;
+                case UP: setInput(PlayerInput.ROTATE_CLOCKWISE, true); break;
+                case DOWN: setInput(PlayerInput.ROTATE_COUNTER_CLOCKWISE, true); break;
+                case SPACE: setInput(PlayerInput.SHOOT, true); break;
             }
         });
 
         scene.setOnKeyReleased(e -> {
             switch (e.getCode()) {
-                case LEFT: movingLeft = false; break;
-                case RIGHT: movingRight = false; break;
-                case UP: rotatingClockwise = false; break;
-                case DOWN: rotatingCounterClockwise = false; break;
+                case LEFT: setInput(PlayerInput.LEFT, false); break;
+                case RIGHT: setInput(PlayerInput.RIGHT, false); break;
+                case UP: setInput(PlayerInput.ROTATE_CLOCKWISE, false); break;
+                case DOWN: setInput(PlayerInput.ROTATE_COUNTER_CLOCKWISE, false); break;
             }
         });
     }
 
-    // Called when the player presses spacebar to shoot
-    private void playerShoot() {
-        Projectile projectile = new Projectile(
-                player.getPosition().getX(),
-                player.getPosition().getY(),
-                player.getRotation(),
-                5,
-                true
-        );
-        projectiles.add(projectile);
-        root.getChildren().add(projectile.getImageView());
+    // Sets or clears a PlayerInput flag, through the simulation thread's queue if it has one.
+    // The keys do nothing while an agent is playing
+    private void setInput(int flag, boolean on) {
+        if (controller != null) return;
+
+        if (client != null) {
+            client.setInputFlag(flag, on);
+        } else if (simulation != null) {
+            simulation.setInput(flag, on);
+        } else {
+            world.setInputFlag(flag, on);
+        }
     }
 
     // Starts the game loop
@@ -156,193 +416,141 @@ public class SpaceInvaders extends Application {
         new AnimationTimer() {
             @Override
             public void handle(long now) {
-                update();
+                update(now);
+                if (capture != null) {
+                    capture.frame(root.getScene(), now);
+                }
+                trackStartup(now);
             }
         }.start();
     }
 
-    // Called every frame
-    private void update() {
-        if (gameOver) return;
-
-        // Handle continuous input
-        if (movingLeft) player.moveLeft();
-        if (movingRight) player.moveRight();
-        if (rotatingClockwise) player.rotate(true);
-        if (rotatingCounterClockwise) player.rotate(false);
-        if (!movingLeft && !movingRight) player.stop();
-
-        // Spawn enemies if the spawn interval has elapsed
-        if ((System.nanoTime() - lastSpawnTime) / 1e9 > getCurrentSpawnInterval()) {
-            spawnEnemy();
-            lastSpawnTime = System.nanoTime();
+    // Reports how long the game took to show its first frame when --startup-report is given,
+    // and quits once --quit-after has passed, e.g. for StartupBenchmark or to train the class data sharing archive
+    private void trackStartup(long now) {
+        pulses++;
+        if (pulses == 1) {
+            firstPulse = now;
+        } else if (pulses == 2 && getParameters().getUnnamed().contains("--startup-report")) {
+            // The first frame has been handed to the screen by the time the next pulse starts
+            Instant launched = ProcessHandle.current().info().startInstant().orElse(Instant.now());
+            System.out.println("first frame after " + Duration.between(launched, Instant.now()).toMillis() + " ms");
+        }
+        if (pulses >= 2 && quitAfterNanos >= 0 && now - firstPulse >= quitAfterNanos) {
+            Platform.exit();
         }
-
-        // Update all game objects
-        player.update();
-        updateEnemies();
-        updateProjectiles();
-
-        // Check for collisions
-        checkCollisions();
-
-        // Remove dead objects
-        cleanupObjects();
     }
 
-    // Spawns a new enemy
-    private void spawnEnemy() {
-        double x = enemySpawnOnLeft
-                ? random.nextDouble() * (WIDTH/2 - 50) // Left half, with some randomness
-                : WIDTH/2 + random.nextDouble() * (WIDTH/2 - 50); // Right half, with some randomness
-
-        EnemyShip enemy = new EnemyShip(x, 0, getGameTimeMultiplier(), enemySpawnOnLeft);
-        enemies.add(enemy);
-        root.getChildren().add(enemy.getImageView());
-
-        // The next enemy should spawn on the opposite side
-        enemySpawnOnLeft = !enemySpawnOnLeft;
+    // Runs one simulation step from the frame loop and times it
+    private void step() {
+        long start = System.nanoTime();
+        advanceWorld();
+        metrics.recordStep(world, System.nanoTime() - start);
     }
 
-    // Called every frame to update the enemy's position and whether they're shooting
-    private void updateEnemies() {
-        for (EnemyShip enemy : enemies) {
-            enemy.update();
-            enemy.bounceOffWall(WIDTH);
-
-            // Enemy shooting
-            if (enemy.canShoot()) {
-                Projectile projectile = new Projectile(
-                        enemy.getPosition().getX(),
-                        enemy.getPosition().getY(),
-                        180 + enemy.getRotation(),
-                        3.5,
-                        false
-                );
-                projectiles.add(projectile);
-                root.getChildren().add(projectile.getImageView());
-                enemy.recordShot();
-            }
+    // Sends one step's input to the server and predicts where it moves the ship
+    private void clientStep() {
+        try {
+            client.step();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    // Update the position of each projectile every frame
-    private void updateProjectiles() {
-        projectiles.forEach(Projectile::update);
+    // Runs one simulation step with the agent's input if one is playing, recording it if a recording is in progress
+    private void advanceWorld() {
+        if (controller != null) {
+            world.setInput(controller.decide(world));
+        }
+        if (recorder != null) {
+            recorder.step(world);
+        } else {
+            world.step();
+        }
     }
 
-    // Check for collisions between ships and projectiles
-    private void checkCollisions() {
-        // Check enemy-enemy collisions
-        for (int i = 0; i < enemies.size(); i++) {
-            for (int j = i + 1; j < enemies.size(); j++) {
-                EnemyShip e1 = enemies.get(i);
-                EnemyShip e2 = enemies.get(j);
-                if (e1.isColliding(e2)) {
-                    e1.handleCollision(e2);
-                }
+    // Called every frame with the pulse's timestamp
+    private void update(long now) {
+        // Explosions keep playing out after the game ends
+        explosions.update(now);
+        // The server's game over screen lasts until it starts the next game
+        if (snapshot.isGameOver() && client == null) return;
+
+        long start = System.nanoTime();
+        double alpha;
+        if (client != null) {
+            // Show the server's newest snapshot, with the ship where its inputs have moved it since
+            try {
+                client.poll();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-        }
-
-        // Check projectile-ship collisions
-        for (Projectile projectile : projectiles) {
-            // Check if the player was hit by an enemy projectile
-            if (projectile.getVelocity().getY() > 0 &&
-                    !projectile.isPlayerProjectile() &&
-                    projectile.isColliding(player)) {
-                // Player loses 1 health, game ends if player is out of health
-                player.health--;
-                updateHealthDisplay();
-                projectile.setAlive(false);
-
-                if (player.health <= 0) {
-                    gameOver();
-                }
+            // Say why if the server turned the client away or can't be reached, and stop there
+            if (client.getError() != null) {
+                hud.setMessage(client.getError());
+                return;
             }
-
-            // Check if the enemy was hit by a player projectile
-            for (EnemyShip enemy : enemies) {
-                if (projectile.getVelocity().getY() < 0 &&
-                        projectile.isPlayerProjectile() &&
-                        projectile.isColliding(enemy)) {
-                    new Explosion( // create an explosion if an enemy was hit
-                            enemy.getPosition().getX(),
-                            enemy.getPosition().getY(),
-                            root
-                    );
-                    enemy.setAlive(false);
-                    projectile.setAlive(false);
-                }
+            alpha = loop.advance(now, clientStep);
+            client.fill(snapshot);
+        } else if (simulation != null) {
+            // Show the newest step the simulation thread has finished
+            long shownTick = snapshot.getTick();
+            snapshot = simulation.latest();
+            if (snapshot.getTick() != shownTick) {
+                metrics.recordStep(snapshot);
             }
+            alpha = snapshot.alphaAt(System.nanoTime());
+        } else {
+            alpha = loop.advance(now, step);
+            snapshot.capture(world);
         }
-
-        // Check player-enemy collisions
-        for (EnemyShip enemy : enemies) {
-            if (enemy.isColliding(player)) {
-                new Explosion(
-                        enemy.getPosition().getX(),
-                        enemy.getPosition().getY(),
-                        root
-                );
-
-                // Player loses 1 health, game ends if player is out of health
-                enemy.setAlive(false);
-                player.health--;
-                updateHealthDisplay();
-
-                if (player.health <= 0) {
-                    gameOver();
-                }
-            }
+        renderer.render(snapshot, alpha);
+        hud.update(snapshot);
+        hud.frame(now);
+        metrics.recordFrame(now, System.nanoTime() - start, snapshot);
+
+        if (metricsOverlay.isVisible() && now - lastOverlayRefresh > OVERLAY_REFRESH_NANOS) {
+            metricsOverlay.setText(capture == null ? metrics.summary() : metrics.summary() + "\n" + capture.summary());
+            metricsOverlay.toFront();
+            lastOverlayRefresh = now;
         }
+
+        // Handled last, as the game ending stops the simulation
+        frameEvents.poll(eventHandler);
     }
 
-    // Called every frame to remove any unneeded objects
-    private void cleanupObjects() {
-        // Remove dead enemies
-        enemies.removeIf(enemy -> {
-            if (!enemy.isAlive()) {
-                root.getChildren().remove(enemy.getImageView());
-                return true;
-            }
-            // Remove enemy and reduce player health if they reached bottom of screen
-            if (enemy.getPosition().getY() > HEIGHT) {
-                root.getChildren().remove(enemy.getImageView());
-                player.health -= 1;
-                updateHealthDisplay();
-                if (player.health <= 0) {
-                    gameOver();
+    // Reacts to an event of the game, once per frame for every event since the last
+    private void handleEvent(int type, long tick, double x, double y, int player, int value) {
+        switch (type) {
+            case GameEvents.ENEMY_KILLED:
+                explosions.spawn(x, y);
+                break;
+            case GameEvents.GAME_OVER:
+                // The server starts its own new games
+                if (client == null) {
+                    stopSimulation();
+                    stopRecording();
+                    exportMetrics();
+                    lastSession = Session.of(world, agentPlaying ? Session.AGENT : Session.KEYBOARD);
+                    sessions.add(lastSession);
                 }
-                return true;
-            }
-            return false;
-        });
-
-        // Remove dead projectiles
-        projectiles.removeIf(projectile -> {
-            if (!projectile.isAlive() ||
-                    projectile.getPosition().getY() < 0 ||
-                    projectile.getPosition().getY() > HEIGHT) {
-                root.getChildren().remove(projectile.getImageView());
-                return true;
-            }
-            return false;
-        });
+                gameOver();
+                break;
+        }
     }
 
     // Called when the game ends
     private void gameOver() {
-        gameOver = true;
-
-        ImageView gameOverImage = new ImageView(GAME_OVER_SPRITE);
-        gameOverImage.setX(WIDTH/2.0 - GAME_OVER_SPRITE.getWidth()/2);  // Center horizontally
-        gameOverImage.setY(HEIGHT/2.0 - GAME_OVER_SPRITE.getHeight()/2); // Center vertically
+        Image gameOver = Sprites.gameOver();
+        ImageView gameOverImage = new ImageView(gameOver);
+        gameOverImage.setX(WIDTH/2.0 - gameOver.getWidth()/2);  // Center horizontally
+        gameOverImage.setY(HEIGHT/2.0 - gameOver.getHeight()/2); // Center vertically
         root.getChildren().add(gameOverImage);
 
         // Create restart button
         restartButton = new Button("Restart Game");
         restartButton.setLayoutX(WIDTH/2.0 - 50);
-        restartButton.setLayoutY(HEIGHT/2.0 + GAME_OVER_SPRITE.getHeight()); // Position below GAME OVER text
+        restartButton.setLayoutY(HEIGHT/2.0 + gameOver.getHeight()); // Position below GAME OVER text
         restartButton.setStyle("-fx-background-color: #4a4a4a; -fx-text-fill: white; -fx-font-size: 14px;");
 
         // Highlight button on hover
@@ -351,31 +559,46 @@ public class SpaceInvaders extends Application {
         restartButton.setOnMouseExited(e ->
                         restartButton.setStyle("-fx-background-color: #4a4a4a; -fx-text-fill: white; -fx-font-size: 14px;"));
 
+        // The best games so far, with this one among them straight away even if it's still being written
+        Text highScores = new Text(WIDTH/2.0 - 110, HEIGHT/2.0 + gameOver.getHeight() + 70, "");
+        highScores.setFont(Font.font("Monospaced", 14));
+        highScores.setFill(Color.WHITE);
+        if (client == null) {
+            highScores.setText(highScoreTable());
+        }
+
         // Restart the game when button is clicked
         restartButton.setOnAction(e -> {
-            root.getChildren().remove(gameOverImage);
-            root.getChildren().remove(restartButton);
+            root.getChildren().removeAll(gameOverImage, restartButton, highScores);
             initGame();
         });
-        root.getChildren().add(restartButton);
-
-        // Clear projectiles and enemies
-        projectiles.forEach(projectile -> {
-            root.getChildren().remove(projectile.getImageView());
-        });
-        projectiles.clear();
-
-        enemies.forEach(enemy -> {
-            root.getChildren().remove(enemy.getImageView());
-        });
-        enemies.clear();
+        root.getChildren().addAll(restartButton, highScores);
+    }
 
-        // Stop the player
-        player.stop();
+    // The best games played, marking this one if it's among them
+    private String highScoreTable() {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%-4s %7s %9s%n", "", "SCORE", "SURVIVED"));
+        List<Session> best = sessions.getTopSessionsWith(lastSession, SHOWN_SESSIONS);
+        for (int i = 0; i < best.size(); i++) {
+            Session session = best.get(i);
+            table.append(String.format(Locale.ROOT, "%-4s %7d %8.1fs%s%n", (i + 1) + ".", session.getScore(),
+                    session.getSurvivalSeconds(), session == lastSession ? "  <" : ""));
+        }
+        return table.toString();
     }
 
-    // Starts the game
+    // Starts the game, pass --renderer=canvas to draw everything on one canvas,
+    // --seed=<n> to play a particular game, --record=<directory> to record games for Replay
+    // --tick-rate=<n> to run the simulation at n steps per second
+    // --metrics=<directory> to export each game's metrics, --atlas to draw sprites from one texture
+    // --threaded to run the simulation on its own thread, --connect=<host:port> to play on a GameServer
+    // --checkpoints=<directory> to keep the checkpoints saved with F5
+    // --player=agent to watch GreedyAgent play instead of using the keyboard
+    // --events=<file> to write every event of every game to a CSV file
+    // --capture=<directory> to record the game as PNG images, at --capture-fps=<n> frames per second
+    // --sessions=<file> to keep the history of games and high scores somewhere other than the home directory
+    // and --startup-report to print the time to the first frame, with --quit-after=<seconds> to then quit
     public static void main(String[] args) {
         launch(args);
     }
-}
\ No newline at end of file
+}
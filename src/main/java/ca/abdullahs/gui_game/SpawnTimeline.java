@@ -0,0 +1,91 @@
+package ca.abdullahs.gui_game;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Every enemy spawn of one pass through a WaveScript, worked out ahead of time and in time order,
+ * so spawning during the game is just reading the next entry
+ */
+public final class SpawnTimeline {
+    private final long[] time;
+    private final int[] wave;
+    private final double[] x;
+    private final double[] speed;
+    private final double[] angle;
+    private final int[] colour;
+    private final boolean[] shooting;
+    private int size;
+    // How long the pass lasts, including the pause after the last wave
+    private long duration;
+
+    SpawnTimeline(int capacity) {
+        time = new long[capacity];
+        wave = new int[capacity];
+        x = new double[capacity];
+        speed = new double[capacity];
+        angle = new double[capacity];
+        colour = new int[capacity];
+        shooting = new boolean[capacity];
+    }
+
+    void add(long spawnTime, int spawnWave, double spawnX, double spawnSpeed, double spawnAngle,
+             int spawnColour, boolean spawnShooting) {
+        time[size] = spawnTime;
+        wave[size] = spawnWave;
+        x[size] = spawnX;
+        speed[size] = spawnSpeed;
+        angle[size] = spawnAngle;
+        colour[size] = spawnColour;
+        shooting[size] = spawnShooting;
+        size++;
+    }
+
+    void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    /// Checkpoints: the timeline is kept as compiled, since compiling it again would draw on the random numbers
+    void write(ByteBuffer out) {
+        out.putInt(size);
+        out.putLong(duration);
+        for (int i = 0; i < size; i++) {
+            out.putLong(time[i]);
+            out.putInt(wave[i]);
+            out.putDouble(x[i]);
+            out.putDouble(speed[i]);
+            out.putDouble(angle[i]);
+            out.put((byte) colour[i]);
+            out.put((byte) (shooting[i] ? 1 : 0));
+        }
+    }
+
+    static SpawnTimeline read(ByteBuffer in) {
+        int size = in.getInt();
+        // A compiled pass always has a spawn in it
+        if (size < 1 || size > in.remaining()) {
+            throw new IllegalArgumentException("Bad spawn timeline size " + size);
+        }
+        SpawnTimeline timeline = new SpawnTimeline(size);
+        timeline.setDuration(in.getLong());
+        for (int i = 0; i < size; i++) {
+            timeline.add(in.getLong(), in.getInt(), in.getDouble(), in.getDouble(), in.getDouble(),
+                    in.get(), in.get() != 0);
+            if (timeline.colour[i] < 0 || timeline.colour[i] >= EnemyShip.COLOURS) {
+                throw new IllegalArgumentException("Bad enemy colour " + timeline.colour[i]);
+            }
+        }
+        return timeline;
+    }
+
+    // Creates the enemy for an entry, at the top of the field
+    public EnemyShip spawn(int i, EntityStore store, GameConfig config) {
+        return new EnemyShip(store, config, x[i], 0, speed[i], angle[i], colour[i], shooting[i]);
+    }
+
+    public int size() { return size; }
+    // Nanoseconds from the start of the pass until the entry spawns
+    public long getTime(int i) { return time[i]; }
+    // The index of the entry's wave in the script
+    public int getWave(int i) { return wave[i]; }
+    public long getDuration() { return duration; }
+}
@@ -0,0 +1,142 @@
+package ca.abdullahs.gui_game;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * The frames of an animated GIF, decoded once so every copy of the animation
+ * can share them and start from its own first frame
+ */
+public final class SpriteAnimation {
+    // GIF frame delays are in hundredths of a second, and browsers treat tiny delays as 1/10 s
+    private static final long NANOS_PER_DELAY_UNIT = 10_000_000L;
+    private static final int DEFAULT_DELAY = 10;
+
+    private final Image[] frames;
+    // When each frame starts, measured from the start of the animation
+    private final long[] frameStart;
+    private final long durationNanos;
+
+    private SpriteAnimation(Image[] frames, long[] frameStart, long durationNanos) {
+        this.frames = frames;
+        this.frameStart = frameStart;
+        this.durationNanos = durationNanos;
+    }
+
+    // Decodes every frame of a GIF on the classpath into a full-size image
+    public static SpriteAnimation load(String resource) {
+        InputStream resourceStream = SpriteAnimation.class.getResourceAsStream(resource);
+        if (resourceStream == null) throw new IllegalArgumentException("No such animation: " + resource);
+
+        try (InputStream in = resourceStream;
+             ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+            try {
+                reader.setInput(stream);
+                int count = reader.getNumImages(true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                Image[] frames = new Image[count];
+                long[] frameStart = new long[count];
+                long time = 0;
+
+                // Later frames only hold the part that changed, so they are drawn over what came before
+                BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                int[] pixels = new int[width * height];
+                for (int i = 0; i < count; i++) {
+                    Node metadata = reader.getImageMetadata(i).getAsTree("javax_imageio_gif_image_1.0");
+                    Node descriptor = child(metadata, "ImageDescriptor");
+                    Node control = child(metadata, "GraphicControlExtension");
+                    int left = intAttribute(descriptor, "imageLeftPosition", 0);
+                    int top = intAttribute(descriptor, "imageTopPosition", 0);
+                    String disposal = control == null ? "none" : attribute(control, "disposalMethod");
+                    int delay = control == null ? 0 : intAttribute(control, "delayTime", 0);
+
+                    BufferedImage patch = reader.read(i);
+                    int[] previous = "restoreToPrevious".equals(disposal)
+                            ? canvas.getRGB(0, 0, width, height, null, 0, width) : null;
+                    Graphics2D graphics = canvas.createGraphics();
+                    try {
+                        graphics.drawImage(patch, left, top, null);
+                    } finally {
+                        graphics.dispose();
+                    }
+
+                    canvas.getRGB(0, 0, width, height, pixels, 0, width);
+                    WritableImage frame = new WritableImage(width, height);
+                    frame.getPixelWriter().setPixels(0, 0, width, height,
+                            PixelFormat.getIntArgbInstance(), pixels, 0, width);
+                    frames[i] = frame;
+                    frameStart[i] = time;
+                    time += (delay <= 1 ? DEFAULT_DELAY : delay) * NANOS_PER_DELAY_UNIT;
+
+                    // Get the canvas ready for the next frame
+                    if ("restoreToBackgroundColor".equals(disposal)) {
+                        for (int y = top; y < Math.min(top + patch.getHeight(), height); y++) {
+                            for (int x = left; x < Math.min(left + patch.getWidth(), width); x++) {
+                                canvas.setRGB(x, y, 0);
+                            }
+                        }
+                    } else if (previous != null) {
+                        canvas.setRGB(0, 0, width, height, previous, 0, width);
+                    }
+                }
+                return new SpriteAnimation(frames, frameStart, time);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't decode " + resource, e);
+        }
+    }
+
+    private static Node child(Node parent, String name) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (name.equals(node.getNodeName())) return node;
+        }
+        return null;
+    }
+
+    private static String attribute(Node node, String name) {
+        NamedNodeMap attributes = node.getAttributes();
+        Node attribute = attributes == null ? null : attributes.getNamedItem(name);
+        return attribute == null ? null : attribute.getNodeValue();
+    }
+
+    private static int intAttribute(Node node, String name, int defaultValue) {
+        String value = node == null ? null : attribute(node, name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    // The frame showing a given time into the animation, holding on the last frame once it has finished
+    public Image frameAt(long elapsedNanos) {
+        int low = 0;
+        int high = frames.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (frameStart[middle] <= elapsedNanos) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return frames[low];
+    }
+
+    public Image getFrame(int index) { return frames[index]; }
+    public int getFrameCount() { return frames.length; }
+    public long getDurationNanos() { return durationNanos; }
+    public double getWidth() { return frames[0].getWidth(); }
+    public double getHeight() { return frames[0].getHeight(); }
+}
@@ -0,0 +1,73 @@
+package ca.abdullahs.gui_game;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Where each sprite is drawn from, either its own image or a region of one shared texture,
+ * by SpriteIds number
+ */
+public final class SpriteAtlas {
+    // Transparent pixels left between packed sprites so smoothing doesn't bleed one into the next
+    private static final int PADDING = 1;
+
+    private final Image[] images;
+    private final Rectangle2D[] regions;
+
+    private SpriteAtlas(Image[] images, Rectangle2D[] regions) {
+        this.images = images;
+        this.regions = regions;
+    }
+
+    // Draws each sprite from its own image, given in SpriteIds order
+    public static SpriteAtlas separate(Image... sprites) {
+        Rectangle2D[] regions = new Rectangle2D[sprites.length];
+        for (int i = 0; i < sprites.length; i++) {
+            regions[i] = new Rectangle2D(0, 0, sprites[i].getWidth(), sprites[i].getHeight());
+        }
+        return new SpriteAtlas(sprites.clone(), regions);
+    }
+
+    // Copies the sprites, given in SpriteIds order, into rows of one image no wider than maxWidth,
+    // so drawing any of them uses the same texture
+    public static SpriteAtlas packed(int maxWidth, Image... sprites) {
+        // Lay the sprites out left to right, starting a new row whenever one doesn't fit
+        Rectangle2D[] regions = new Rectangle2D[sprites.length];
+        int x = PADDING;
+        int y = PADDING;
+        int rowHeight = 0;
+        int width = 0;
+        for (int i = 0; i < sprites.length; i++) {
+            int spriteWidth = (int) sprites[i].getWidth();
+            int spriteHeight = (int) sprites[i].getHeight();
+            if (x > PADDING && x + spriteWidth + PADDING > maxWidth) {
+                x = PADDING;
+                y += rowHeight + PADDING;
+                rowHeight = 0;
+            }
+            regions[i] = new Rectangle2D(x, y, spriteWidth, spriteHeight);
+            x += spriteWidth + PADDING;
+            rowHeight = Math.max(rowHeight, spriteHeight);
+            width = Math.max(width, x);
+        }
+
+        WritableImage texture = new WritableImage(Math.max(width, 1), Math.max(y + rowHeight + PADDING, 1));
+        Image[] images = new Image[sprites.length];
+        for (int i = 0; i < sprites.length; i++) {
+            Rectangle2D region = regions[i];
+            texture.getPixelWriter().setPixels((int) region.getMinX(), (int) region.getMinY(),
+                    (int) region.getWidth(), (int) region.getHeight(), sprites[i].getPixelReader(), 0, 0);
+            images[i] = texture;
+        }
+        return new SpriteAtlas(images, regions);
+    }
+
+    // The image a sprite is drawn from
+    public Image getImage(int sprite) { return images[sprite]; }
+
+    // The part of the image the sprite covers
+    public Rectangle2D getRegion(int sprite) { return regions[sprite]; }
+
+    public int size() { return images.length; }
+}
@@ -0,0 +1,16 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * The sprite numbers game objects report with getSprite, which SpriteAtlas is indexed by.
+ * They live apart from Sprites, which loads the images with JavaFX, so the simulation doesn't need it
+ */
+public final class SpriteIds {
+    public static final int PLAYER_SPRITE = 0;
+    public static final int PROJECTILE_SPRITE = 1;
+    // Followed by the other enemy colours
+    public static final int ENEMY_SPRITE = 2;
+    // How many sprite numbers there are
+    public static final int COUNT = ENEMY_SPRITE + EnemyShip.COLOURS;
+
+    private SpriteIds() {}
+}
@@ -0,0 +1,68 @@
+package ca.abdullahs.gui_game;
+
+import javafx.scene.image.Image;
+
+/**
+ * Every image the game draws, decoded once and shared by all renderers.
+ * Only the game object sprites are needed for the first frame. The rest, such as the explosion, whose
+ * frames take far longer to decode than everything else together, are each decoded the first time
+ * they're asked for, or ahead of time on a background thread by loadInBackground
+ */
+public final class Sprites {
+    private Sprites() {}
+
+    /// Each group of images is decoded when its holder class is first used, which the JVM does once
+    /// and safely across threads, so a thread asking for one that is still loading waits for it
+    private static final class GameObjects {
+        // Indexed by SpriteIds number, with one sprite per enemy colour
+        static final Image[] IMAGES = new Image[SpriteIds.COUNT];
+        static {
+            IMAGES[SpriteIds.PLAYER_SPRITE] = load("/player.png");
+            IMAGES[SpriteIds.PROJECTILE_SPRITE] = load("/projectile.png");
+            IMAGES[SpriteIds.ENEMY_SPRITE] = load("/red.png");
+            IMAGES[SpriteIds.ENEMY_SPRITE + 1] = load("/green.png");
+            IMAGES[SpriteIds.ENEMY_SPRITE + 2] = load("/yellow.png");
+        }
+        static final SpriteAtlas SEPARATE = SpriteAtlas.separate(IMAGES);
+    }
+
+    private static final class Packed {
+        static final SpriteAtlas ATLAS = SpriteAtlas.packed(1024, GameObjects.IMAGES);
+    }
+
+    private static final class GameOver {
+        static final Image IMAGE = load("/game_over.png");
+    }
+
+    private static final class Explosion {
+        static final SpriteAnimation ANIMATION = SpriteAnimation.load("/explosion.gif");
+    }
+
+    // The game object sprites, each drawn from its own image
+    public static SpriteAtlas separate() { return GameObjects.SEPARATE; }
+    // The game object sprites, all drawn from one shared texture
+    public static SpriteAtlas packed() { return Packed.ATLAS; }
+    public static Image gameOver() { return GameOver.IMAGE; }
+    public static SpriteAnimation explosion() { return Explosion.ANIMATION; }
+
+    // Decodes the images that aren't needed for the first frame on a thread of its own,
+    // so they are ready by the time they are shown without holding up the start of the game
+    public static void loadInBackground() {
+        Thread thread = new Thread(() -> {
+            explosion();
+            gameOver();
+        }, "sprite loader");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    // Loads an image from the classpath, failing straight away if it can't be decoded
+    private static Image load(String resource) {
+        Image image = new Image(resource);
+        if (image.isError()) {
+            throw new IllegalStateException("Couldn't load " + resource, image.getException());
+        }
+        return image;
+    }
+}
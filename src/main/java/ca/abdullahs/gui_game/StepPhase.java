@@ -0,0 +1,20 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * The phases of a world step, in the order they run
+ */
+public enum StepPhase {
+    SPAWN("spawn"),
+    MOVE("move"),
+    ENEMIES("enemies"),
+    COLLISIONS("collisions"),
+    CLEANUP("cleanup");
+
+    private final String label;
+
+    StepPhase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() { return label; }
+}
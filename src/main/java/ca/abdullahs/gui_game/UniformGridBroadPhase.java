@@ -0,0 +1,156 @@
+package ca.abdullahs.gui_game;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A broad-phase that buckets objects into a uniform grid over the playing field,
+ * so only objects sharing a cell are paired up
+ */
+public class UniformGridBroadPhase implements BroadPhase {
+    private static final double DEFAULT_CELL_SIZE = 64;
+
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+
+    // The objects in each cell, laid out cell after cell by a counting sort:
+    // cell c holds cellObjects[cellStart[c]] up to cellObjects[cellStart[c + 1]]
+    private final int[] cellStart;
+    private final int[] cellFill;
+    private int[] cellObjects = new int[64];
+
+    // The range of cells each object covers
+    private int[] minColumn = new int[16];
+    private int[] maxColumn = new int[16];
+    private int[] minRow = new int[16];
+    private int[] maxRow = new int[16];
+
+    public UniformGridBroadPhase() {
+        this(World.WIDTH, World.HEIGHT, DEFAULT_CELL_SIZE);
+    }
+
+    public UniformGridBroadPhase(double width, double height, double cellSize) {
+        this.cellSize = cellSize;
+        columns = (int) Math.ceil(width / cellSize);
+        rows = (int) Math.ceil(height / cellSize);
+        cellStart = new int[columns * rows + 1];
+        cellFill = new int[columns * rows];
+    }
+
+    @Override public void build(List<? extends GameObject> objects) {
+        int count = objects.size();
+        if (minColumn.length < count) {
+            int capacity = Math.max(count, minColumn.length * 2);
+            minColumn = new int[capacity];
+            maxColumn = new int[capacity];
+            minRow = new int[capacity];
+            maxRow = new int[capacity];
+        }
+
+        // Count how many objects land in each cell
+        Arrays.fill(cellStart, 0);
+        int entries = 0;
+        for (int i = 0; i < count; i++) {
+            GameObject object = objects.get(i);
+            double x = object.getX();
+            double y = object.getY();
+            double halfWidth = object.getHalfExtentX();
+            double halfHeight = object.getHalfExtentY();
+            minColumn[i] = column(x - halfWidth);
+            maxColumn[i] = column(x + halfWidth);
+            minRow[i] = row(y - halfHeight);
+            maxRow[i] = row(y + halfHeight);
+
+            for (int r = minRow[i]; r <= maxRow[i]; r++) {
+                for (int c = minColumn[i]; c <= maxColumn[i]; c++) {
+                    cellStart[r * columns + c + 1]++;
+                    entries++;
+                }
+            }
+        }
+
+        // Turn the counts into start offsets, then drop each object into its cells
+        for (int cell = 0; cell < cellFill.length; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        System.arraycopy(cellStart, 0, cellFill, 0, cellFill.length);
+        if (cellObjects.length < entries) {
+            cellObjects = new int[Math.max(entries, cellObjects.length * 2)];
+        }
+        for (int i = 0; i < count; i++) {
+            for (int r = minRow[i]; r <= maxRow[i]; r++) {
+                for (int c = minColumn[i]; c <= maxColumn[i]; c++) {
+                    cellObjects[cellFill[r * columns + c]++] = i;
+                }
+            }
+        }
+    }
+
+    @Override public void forEachPair(PairVisitor visitor) {
+        visitPairs(0, cellFill.length, visitor);
+    }
+
+    // Each row of cells is a region
+    @Override public int getRegionCount() {
+        return rows;
+    }
+
+    @Override public void forEachPairInRegion(int region, PairVisitor visitor) {
+        visitPairs(region * columns, (region + 1) * columns, visitor);
+    }
+
+    // Visits the pairs first shared in a range of cells
+    private void visitPairs(int fromCell, int toCell, PairVisitor visitor) {
+        // Objects were added in index order, so i < j within each cell
+        for (int cell = fromCell; cell < toCell; cell++) {
+            for (int a = cellStart[cell]; a < cellStart[cell + 1]; a++) {
+                for (int b = a + 1; b < cellStart[cell + 1]; b++) {
+                    int i = cellObjects[a];
+                    int j = cellObjects[b];
+
+                    // Objects sharing several cells are only paired in the first cell they share
+                    int firstShared = Math.max(minRow[i], minRow[j]) * columns
+                            + Math.max(minColumn[i], minColumn[j]);
+                    if (firstShared == cell) {
+                        visitor.visit(i, j);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override public void forEachInBox(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+        int firstColumn = column(minX);
+        int firstRow = row(minY);
+        int lastColumn = column(maxX);
+        int lastRow = row(maxY);
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                int cell = r * columns + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int i = cellObjects[k];
+
+                    // Objects in several of the cells are only visited in the first one
+                    int firstShared = Math.max(firstRow, minRow[i]) * columns
+                            + Math.max(firstColumn, minColumn[i]);
+                    if (firstShared == cell) {
+                        visitor.accept(i);
+                    }
+                }
+            }
+        }
+    }
+
+    // The column containing an x coordinate, with anything off the field going in the edge cells
+    private int column(double x) {
+        return Math.min(Math.max((int) Math.floor(x / cellSize), 0), columns - 1);
+    }
+
+    // The row containing a y coordinate, with anything off the field going in the edge cells
+    private int row(double y) {
+        return Math.min(Math.max((int) Math.floor(y / cellSize), 0), rows - 1);
+    }
+}
@@ -0,0 +1,108 @@
+package ca.abdullahs.gui_game;
+
+/**
+ * Steps many headless games in lockstep for training and evaluating agents: each step takes one
+ * PlayerInput action per game and writes every game's Observation side by side into one buffer,
+ * along with the reward each earned and whether its game ended.
+ * A game that ends is replaced by a new one straight away, so its observation is the new game's first,
+ * and every game gets the next seed in turn, so a run is the same every time
+ */
+public class VectorEnv {
+    // Reward for shooting down an enemy, and for losing a point of health
+    public static final float KILL_REWARD = 1;
+    public static final float DAMAGE_REWARD = -1;
+
+    private final GameConfig config;
+    private final World[] worlds;
+    // The seed of the next game to start
+    private long nextSeed;
+    // Games are cut short after this many steps
+    private final long maxTicks;
+
+    private final Observation observation = new Observation();
+    private final float[] observations;
+    private final float[] rewards;
+    // Whether each game ended in the last step, and whether that was because it ran out of time
+    private final boolean[] done;
+    private final boolean[] truncated;
+    // Each game's kills and damage before the last step, which the rewards are worked out from
+    private final int[] kills;
+    private final int[] damage;
+
+    private long steps;
+    private long gamesFinished;
+
+    public VectorEnv(GameConfig config, int count, long seed, long maxTicks) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("A VectorEnv needs at least one game");
+        }
+        this.config = config;
+        this.maxTicks = maxTicks;
+        worlds = new World[count];
+        observations = new float[count * Observation.SIZE];
+        rewards = new float[count];
+        done = new boolean[count];
+        truncated = new boolean[count];
+        kills = new int[count];
+        damage = new int[count];
+        nextSeed = seed;
+        reset();
+    }
+
+    // Starts a new game in every slot
+    public void reset() {
+        for (int i = 0; i < worlds.length; i++) {
+            startGame(i);
+            rewards[i] = 0;
+            done[i] = false;
+            truncated[i] = false;
+        }
+    }
+
+    // Runs one step of every game with its PlayerInput action, then fills in the observations,
+    // rewards and done flags
+    public void step(int[] actions) {
+        if (actions.length < worlds.length) {
+            throw new IllegalArgumentException("Expected " + worlds.length + " actions, got " + actions.length);
+        }
+
+        for (int i = 0; i < worlds.length; i++) {
+            World world = worlds[i];
+            world.setInput(actions[i]);
+            world.step();
+
+            rewards[i] = (world.getKills() - kills[i]) * KILL_REWARD
+                    + (world.getDamageTaken() - damage[i]) * DAMAGE_REWARD;
+            truncated[i] = !world.isGameOver() && world.getTick() >= maxTicks;
+            done[i] = world.isGameOver() || truncated[i];
+            if (done[i]) {
+                gamesFinished++;
+                startGame(i);
+            } else {
+                kills[i] = world.getKills();
+                damage[i] = world.getDamageTaken();
+                observation.write(world, 0, observations, i * Observation.SIZE);
+            }
+        }
+        steps += worlds.length;
+    }
+
+    private void startGame(int i) {
+        World world = new World(config, new UniformGridBroadPhase(), nextSeed++);
+        worlds[i] = world;
+        kills[i] = 0;
+        damage[i] = 0;
+        observation.write(world, 0, observations, i * Observation.SIZE);
+    }
+
+    // Every game's observation, the i-th starting at i * Observation.SIZE
+    public float[] getObservations() { return observations; }
+    public float[] getRewards() { return rewards; }
+    public boolean[] getDone() { return done; }
+    public boolean[] getTruncated() { return truncated; }
+    public int getCount() { return worlds.length; }
+    public World getWorld(int i) { return worlds[i]; }
+    // Steps run across all the games, and games that have ended
+    public long getSteps() { return steps; }
+    public long getGamesFinished() { return gamesFinished; }
+}
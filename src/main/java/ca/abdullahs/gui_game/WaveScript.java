@@ -0,0 +1,237 @@
+package ca.abdullahs.gui_game;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * The enemy waves of a game, parsed from a text definition (see /waves.txt for the format)
+ * and compiled into a SpawnTimeline for each pass through the script
+ */
+public final class WaveScript {
+    // How enemies in a wave enter the field
+    public enum Formation { ALTERNATE, LINE, COLUMN, RANDOM }
+
+    // Marks a wave whose enemies each get a random colour
+    public static final int RANDOM_COLOUR = -1;
+    private static final String[] COLOUR_NAMES = {"red", "green", "yellow"};
+
+    // Enemies spawn this far in from the sides of the field
+    private static final double SPAWN_MARGIN = 50;
+
+    // Declared after the constants parsing needs, so they are set before it's loaded
+    public static final WaveScript DEFAULT = load("/waves.txt");
+
+    // One wave of the script
+    public static final class Wave {
+        final int count;
+        final Formation formation;
+        final int colour;
+        final double startSpeed;
+        final double endSpeed;
+        final double shooters;
+        final double interval;
+        final double pause;
+
+        Wave(int count, Formation formation, int colour, double startSpeed, double endSpeed,
+             double shooters, double interval, double pause) {
+            this.count = count;
+            this.formation = formation;
+            this.colour = colour;
+            this.startSpeed = startSpeed;
+            this.endSpeed = endSpeed;
+            this.shooters = shooters;
+            this.interval = interval;
+            this.pause = pause;
+        }
+
+        public int getCount() { return count; }
+        public Formation getFormation() { return formation; }
+    }
+
+    private final String source;
+    private final List<Wave> waves;
+    private final double loopSpeedup;
+
+    private WaveScript(String source, List<Wave> waves, double loopSpeedup) {
+        this.source = source;
+        this.waves = waves;
+        this.loopSpeedup = loopSpeedup;
+    }
+
+    // Loads and parses a script from the classpath
+    public static WaveScript load(String resource) {
+        try (InputStream in = WaveScript.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalArgumentException("No such wave script: " + resource);
+            return parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't read " + resource, e);
+        }
+    }
+
+    // Parses a script, failing with the line number of anything it doesn't understand
+    public static WaveScript parse(String source) {
+        List<Wave> waves = new ArrayList<>();
+        double loopSpeedup = 0;
+        String[] lines = source.split("\r?\n");
+        for (int number = 1; number <= lines.length; number++) {
+            String line = lines[number - 1].replaceFirst("#.*", "").trim();
+            if (line.isEmpty()) continue;
+
+            String[] words = line.split("\\s+");
+            try {
+                switch (words[0]) {
+                    case "loop_speedup":
+                        loopSpeedup = Double.parseDouble(words[1]);
+                        // Written so that NaN and infinity fail too, as with the wave speeds
+                        if (!(loopSpeedup >= 0 && loopSpeedup < Double.POSITIVE_INFINITY)) {
+                            throw new IllegalArgumentException("loop_speedup must be 0 or more");
+                        }
+                        break;
+                    case "wave":
+                        waves.add(parseWave(words));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown setting " + words[0]);
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Wave script line " + number + ": " + e.getMessage(), e);
+            }
+        }
+        if (waves.isEmpty()) {
+            throw new IllegalArgumentException("Wave script has no waves");
+        }
+        // A pass through the script that takes no time would spawn every enemy it can in a single step,
+        // and again every step after. Intervals scale with the game's spawn interval, which may be 0,
+        // so only the pauses count towards it
+        long duration = 0;
+        for (Wave wave : waves) {
+            duration += (long) (wave.pause * 1e9);
+        }
+        if (duration == 0) {
+            throw new IllegalArgumentException("Wave script needs a pause after at least one wave, "
+                    + "or a pass through it takes no time");
+        }
+        return new WaveScript(source, Collections.unmodifiableList(waves), loopSpeedup);
+    }
+
+    private static Wave parseWave(String[] words) {
+        int count = 1;
+        Formation formation = Formation.ALTERNATE;
+        int colour = RANDOM_COLOUR;
+        double startSpeed = 1;
+        double endSpeed = 1;
+        double shooters = 0.5;
+        double interval = 1;
+        double pause = 0;
+        for (int i = 1; i < words.length; i++) {
+            String[] setting = words[i].split("=", 2);
+            if (setting.length != 2) throw new IllegalArgumentException("expected name=value, got " + words[i]);
+            String value = setting[1];
+            switch (setting[0]) {
+                case "count": count = Integer.parseInt(value); break;
+                case "formation": formation = Formation.valueOf(value.toUpperCase(Locale.ROOT)); break;
+                case "colour": colour = parseColour(value); break;
+                case "speed":
+                    String[] range = value.split("\\.\\.", 2);
+                    startSpeed = Double.parseDouble(range[0]);
+                    endSpeed = range.length > 1 ? Double.parseDouble(range[1]) : startSpeed;
+                    break;
+                case "shooters": shooters = Double.parseDouble(value); break;
+                case "interval": interval = Double.parseDouble(value); break;
+                case "pause": pause = Double.parseDouble(value); break;
+                default: throw new IllegalArgumentException("unknown wave setting " + setting[0]);
+            }
+        }
+        if (count < 1) throw new IllegalArgumentException("a wave needs at least one enemy");
+        // Written so that NaN fails too
+        if (!(interval >= 0 && pause >= 0)) throw new IllegalArgumentException("times can't be negative");
+        if (!(startSpeed >= 0 && endSpeed >= 0 && Math.max(startSpeed, endSpeed) < Double.POSITIVE_INFINITY)) {
+            throw new IllegalArgumentException("speeds must be 0 or more");
+        }
+        if (!(shooters >= 0 && shooters <= 1)) throw new IllegalArgumentException("shooters must be from 0 to 1");
+        return new Wave(count, formation, colour, startSpeed, endSpeed, shooters, interval, pause);
+    }
+
+    private static int parseColour(String name) {
+        if ("random".equals(name)) return RANDOM_COLOUR;
+        for (int colour = 0; colour < COLOUR_NAMES.length; colour++) {
+            if (COLOUR_NAMES[colour].equals(name)) return colour;
+        }
+        throw new IllegalArgumentException("unknown colour " + name);
+    }
+
+    // Works out every spawn of one pass through the script: when, where, and what kind of enemy.
+    // All the randomness is drawn here, in order, so the same random state gives the same timeline
+    public SpawnTimeline compile(int loop, GameConfig config, Random random) {
+        int total = 0;
+        for (Wave wave : waves) {
+            total += wave.count;
+        }
+
+        SpawnTimeline timeline = new SpawnTimeline(total);
+        double speedup = loop * loopSpeedup;
+        long time = 0;
+        for (int w = 0; w < waves.size(); w++) {
+            Wave wave = waves.get(w);
+            long interval = (long) (wave.interval * config.getInitialSpawnInterval() * 1e9);
+            double columnX = SPAWN_MARGIN + random.nextDouble() * (World.WIDTH - 2 * SPAWN_MARGIN);
+            boolean columnMovingRight = random.nextBoolean();
+
+            for (int k = 0; k < wave.count; k++) {
+                // Where the enemy enters and which way it heads
+                double x;
+                boolean movingRight;
+                switch (wave.formation) {
+                    case LINE:
+                        x = SPAWN_MARGIN + (World.WIDTH - 2 * SPAWN_MARGIN) * (k + 0.5) / wave.count;
+                        movingRight = k % 2 == 0;
+                        break;
+                    case COLUMN:
+                        x = columnX;
+                        movingRight = columnMovingRight;
+                        break;
+                    case RANDOM:
+                        x = random.nextDouble() * World.WIDTH;
+                        movingRight = random.nextBoolean();
+                        break;
+                    default:
+                        // Left and right halves in turn, heading across the field
+                        movingRight = k % 2 == 0;
+                        x = movingRight
+                                ? random.nextDouble() * (World.WIDTH/2 - SPAWN_MARGIN)
+                                : World.WIDTH/2 + random.nextDouble() * (World.WIDTH/2 - SPAWN_MARGIN);
+                        break;
+                }
+
+                // Speed ramps across the wave, and each pass through the script is faster
+                double progress = wave.count == 1 ? 0 : (double) k / (wave.count - 1);
+                double speed = config.getEnemyBaseSpeed()
+                        * (wave.startSpeed + (wave.endSpeed - wave.startSpeed) * progress + speedup);
+                double baseAngle = movingRight ? -60 : 60;
+                double angle = baseAngle + (random.nextDouble() * 2 - 1) * config.getEnemyAngleVariance();
+                int colour = wave.colour == RANDOM_COLOUR ? random.nextInt(EnemyShip.COLOURS) : wave.colour;
+                boolean shooting = random.nextDouble() < wave.shooters;
+
+                timeline.add(time, w, x, speed, angle, colour, shooting);
+                if (k < wave.count - 1) {
+                    time += interval;
+                }
+            }
+            time += (long) (wave.pause * 1e9);
+        }
+        timeline.setDuration(time);
+        return timeline;
+    }
+
+    // The text the script was parsed from, so a recording can carry it
+    public String getSource() { return source; }
+    public List<Wave> getWaves() { return waves; }
+    public double getLoopSpeedup() { return loopSpeedup; }
+}
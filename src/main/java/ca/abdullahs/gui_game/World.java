@@ -0,0 +1,684 @@
+package ca.abdullahs.gui_game;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ * The game simulation, which runs without any JavaFX nodes
+ */
+public class World {
+    /// Constants
+    public static final int WIDTH = 800;
+    public static final int HEIGHT = 600;
+    // The game was designed at 60 fps, and speeds are given per 1/60 of a second
+    public static final int DEFAULT_TICK_RATE = 60;
+    public static final long STEP_NANOS = 1_000_000_000L / DEFAULT_TICK_RATE;
+    private static final int SCORE_PER_KILL = 100;
+    // The fewest objects worth splitting the collision tests across threads for
+    private static final int PARALLEL_COLLISION_THRESHOLD = 1024;
+    // The most players that can share a world
+    public static final int MAX_PLAYERS = 8;
+    // Space between the starting positions of the players, and their height
+    private static final double PLAYER_SPACING = 80;
+    private static final double PLAYER_Y = HEIGHT - 50;
+
+    /// Game objects
+    // Holds the state of every game object in primitive arrays
+    private final EntityStore store = new EntityStore();
+    // The players' ships, with the first one's at the center; a player out of health is no longer alive
+    private final List<PlayerShip> players = new ArrayList<>();
+    private List<EnemyShip> enemies = new ArrayList<>();
+    private List<Projectile> projectiles = new ArrayList<>();
+    // Where the world's events are published, or null when nothing reads them
+    private GameEvents events;
+    // Finds the objects close enough to need a collision test
+    private final BroadPhase broadPhase;
+    // The settings this game is played with
+    private final GameConfig config;
+    // Recycles projectiles once they leave the world
+    private final ProjectilePool projectilePool;
+    // Simulated time that passes each step
+    private final long stepNanos;
+    // The length of a step relative to a 60 fps frame, which per-frame speeds are scaled by
+    private final double stepScale;
+    // The only source of randomness in the simulation, so a seed and the inputs reproduce a game
+    private final long seed;
+    private final GameRandom random;
+
+    /// Game state
+    // The number of steps since the game started
+    private long tick;
+    // Simulated time since the game started, in nanoseconds
+    private long time;
+    // The spawns of the current pass through the wave script, and the next one due
+    private SpawnTimeline timeline;
+    private int nextSpawn;
+    // Which pass through the script this is, and when it started,
+    // which is pushed back for as long as spawning is held up by the live entity cap
+    private int loop;
+    private long loopStart;
+    // The wave of the last enemy spawned, counting on across passes through the script
+    private int wave = 1;
+    // Whether the game is over
+    private boolean gameOver = false;
+    // Each player's PlayerInput flags for the next step; SHOOT is cleared once the shot is fired
+    private final int[] inputs = new int[MAX_PLAYERS];
+    // Enemies shot down by the player
+    private int kills;
+    // Health the player has lost
+    private int damageTaken;
+    // The number of exact collision tests made in the last step
+    private int pairTests;
+    // Whether to time each phase of a step, and how long each took in the last step
+    private boolean profiling;
+    private final long[] phaseNanos = new long[StepPhase.values().length];
+
+    /// Collision callbacks, created once so the collision pass doesn't allocate
+    private final BroadPhase.PairVisitor enemyPairCheck = this::checkEnemyPair;
+    private final IntConsumer projectileHitCheck = this::checkProjectileHit;
+    private final IntConsumer playerHitCheck = this::checkPlayerHit;
+    // The projectile whose nearby enemies are being checked, and the player whose are
+    private Projectile currentProjectile;
+    private PlayerShip currentPlayer;
+    // The first live enemy found along the current projectile's path, and how far through the step it was hit
+    private int firstHit;
+    private double firstHitTime;
+    // Runs the collision tests on several threads when a pool has been given
+    private ParallelNarrowPhase parallelNarrowPhase;
+    private final BroadPhase.PairVisitor enemyCollision = this::bounceEnemies;
+    private final BroadPhase.PairVisitor projectileHit = this::applyProjectileHit;
+
+    public World() {
+        this(new UniformGridBroadPhase());
+    }
+
+    public World(BroadPhase broadPhase) {
+        this(GameConfig.DEFAULT, broadPhase, new Random().nextLong());
+    }
+
+    public World(GameConfig config, BroadPhase broadPhase, long seed) {
+        this.config = config;
+        this.broadPhase = broadPhase;
+        this.seed = seed;
+        random = new GameRandom(seed);
+        stepNanos = 1_000_000_000L / config.getTickRate();
+        stepScale = (double) stepNanos / STEP_NANOS;
+        projectilePool = new ProjectilePool(store, config.getProjectilePoolCapacity());
+        addPlayer();
+        timeline = config.getWaves().compile(0, config, random);
+    }
+
+    // The wave the last enemy to spawn belongs to, starting from 1
+    public int getWave() {
+        return wave;
+    }
+
+    // Adds another player's ship beside the others, returning the new player's number
+    public int addPlayer() {
+        int index = players.size();
+        if (index == MAX_PLAYERS) {
+            throw new IllegalStateException("A world holds at most " + MAX_PLAYERS + " players");
+        }
+
+        players.add(new PlayerShip(store, startX(index), PLAYER_Y));
+        return index;
+    }
+
+    // Where a player's ship starts, with players alternating to the right and left of the center
+    private static double startX(int player) {
+        double offset = (player + 1) / 2 * PLAYER_SPACING * (player % 2 == 1 ? 1 : -1);
+        return WIDTH / 2 + offset;
+    }
+
+    // Brings a removed player's ship back at its starting place with full health, for a new player to take over,
+    // so players coming and going don't use up the MAX_PLAYERS numbers
+    public void reusePlayer(int player) {
+        PlayerShip ship = players.get(player);
+        ship.setPosition(startX(player), PLAYER_Y);
+        ship.setRotation(0);
+        ship.stop();
+        ship.resetInterpolation();
+        ship.health = PlayerShip.MAX_HEALTH;
+        ship.setAlive(true);
+        inputs[player] = 0;
+    }
+
+    // Takes a player's ship out of the game, e.g. when they disconnect
+    public void removePlayer(int player) {
+        PlayerShip ship = players.get(player);
+        ship.health = 0;
+        ship.setAlive(false);
+        ship.stop();
+        inputs[player] = 0;
+    }
+
+    // Fires a projectile from the player ship on the next step
+    public void playerShoot() {
+        inputs[0] |= PlayerInput.SHOOT;
+    }
+
+    // Fires a projectile from a player ship
+    private void fireShot(int index) {
+        PlayerShip player = players.get(index);
+        publish(GameEvents.SHOT_FIRED, player.getX(), player.getY(), index, 0);
+        Projectile projectile = projectilePool.obtain(
+                player.getX(),
+                player.getY(),
+                player.getRotation(),
+                5,
+                true
+        );
+        projectiles.add(projectile);
+    }
+
+    // Advances the simulation by one step
+    public void step() {
+        if (gameOver) return;
+        tick++;
+        time += stepNanos;
+
+        long mark = profiling ? System.nanoTime() : 0;
+
+        // Where everything was before this step, including the turns the players' input is about to make
+        store.savePrevious();
+
+        for (int p = 0; p < players.size(); p++) {
+            PlayerShip player = players.get(p);
+            if (!player.isAlive()) continue;
+
+            // Fire the shot asked for since the last step
+            if (PlayerInput.has(inputs[p], PlayerInput.SHOOT)) {
+                fireShot(p);
+                inputs[p] &= ~PlayerInput.SHOOT;
+            }
+
+            // Handle continuous input
+            player.applyInput(inputs[p], stepScale);
+        }
+
+        // Spawn the enemies that are due
+        spawnEnemies();
+        mark = endPhase(StepPhase.SPAWN, mark);
+
+        // Move all game objects, then apply their own rules
+        store.integrate(stepScale);
+        for (PlayerShip player : players) {
+            player.constrainToScreen();
+        }
+        mark = endPhase(StepPhase.MOVE, mark);
+        updateEnemies();
+        mark = endPhase(StepPhase.ENEMIES, mark);
+
+        // Check for collisions
+        checkCollisions();
+        mark = endPhase(StepPhase.COLLISIONS, mark);
+
+        // Remove dead objects
+        cleanupObjects();
+        endPhase(StepPhase.CLEANUP, mark);
+
+        // Players out of health leave the game, which ends once none are left
+        boolean anyAlive = false;
+        for (PlayerShip player : players) {
+            if (player.isAlive() && player.health <= 0) {
+                player.setAlive(false);
+                player.stop();
+            }
+            anyAlive |= player.isAlive();
+        }
+        if (!anyAlive) {
+            endGame();
+        }
+    }
+
+    // Records how long a phase took when profiling, returning the time the next phase starts
+    private long endPhase(StepPhase phase, long start) {
+        if (!profiling) return 0;
+
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] = now - start;
+        return now;
+    }
+
+    // Spawns every enemy on the timeline that is due, holding the rest of the timeline back
+    // while the field is at the live entity cap
+    private void spawnEnemies() {
+        while (time >= loopStart + timeline.getTime(nextSpawn)) {
+            if (isFull()) {
+                loopStart += stepNanos;
+                return;
+            }
+
+            enemies.add(timeline.spawn(nextSpawn, store, config));
+            wave = loop * config.getWaves().getWaves().size() + timeline.getWave(nextSpawn) + 1;
+
+            // Start the next pass through the script once this one is used up
+            if (++nextSpawn == timeline.size()) {
+                loopStart += timeline.getDuration();
+                loop++;
+                timeline = config.getWaves().compile(loop, config, random);
+                nextSpawn = 0;
+            }
+        }
+    }
+
+    // Whether there are as many enemies and projectiles as the config allows
+    private boolean isFull() {
+        return enemies.size() + projectiles.size() >= config.getMaxLiveEntities();
+    }
+
+    // Called every step to bounce enemies off the walls and let them shoot
+    private void updateEnemies() {
+        for (int i = 0; i < enemies.size(); i++) {
+            EnemyShip enemy = enemies.get(i);
+            enemy.bounceOffWall(WIDTH);
+
+            // Enemy shooting, unless the field is full
+            if (enemy.canShoot(time) && !isFull()) {
+                publish(GameEvents.SHOT_FIRED, enemy.getX(), enemy.getY(), -1, 0);
+                Projectile projectile = projectilePool.obtain(
+                        enemy.getX(),
+                        enemy.getY(),
+                        180 + enemy.getRotation(),
+                        3.5,
+                        false
+                );
+                projectiles.add(projectile);
+                enemy.recordShot(time);
+            }
+        }
+    }
+
+    // Check for collisions between ships and projectiles
+    void checkCollisions() {
+        pairTests = 0;
+        broadPhase.build(enemies);
+
+        if (parallelNarrowPhase != null
+                && enemies.size() + projectiles.size() >= PARALLEL_COLLISION_THRESHOLD) {
+            // Run the tests across threads, then act on the collisions in the order found below
+            parallelNarrowPhase.run(enemies, projectiles, players);
+            pairTests += parallelNarrowPhase.getTests();
+            parallelNarrowPhase.forEachEnemyCollision(enemyCollision);
+            parallelNarrowPhase.forEachProjectileHit(projectileHit);
+        } else {
+            // Check enemy-enemy collisions
+            broadPhase.forEachPair(enemyPairCheck);
+
+            // Check projectile-ship collisions
+            for (int i = 0; i < projectiles.size(); i++) {
+                Projectile projectile = projectiles.get(i);
+
+                // Check if a player was hit by an enemy projectile.
+                // Projectiles are tested along their whole path, so they can't skip over a ship at low tick rates
+                if (projectile.getVelocityY() > 0 && !projectile.isPlayerProjectile()) {
+                    for (int p = 0; p < players.size(); p++) {
+                        PlayerShip player = players.get(p);
+                        if (player.isAlive() && isSweptColliding(projectile, player)) {
+                            hitPlayer(projectile, player);
+                            break;
+                        }
+                    }
+                }
+
+                // Check if an enemy was hit by a player projectile. Only the first enemy along its path is,
+                // as the shot stops there however many others the path crosses
+                if (projectile.getVelocityY() < 0 && projectile.isPlayerProjectile()) {
+                    currentProjectile = projectile;
+                    firstHit = -1;
+                    broadPhase.forEachNearPath(projectile, projectileHitCheck);
+                    if (firstHit >= 0) {
+                        hitEnemy(projectile, enemies.get(firstHit));
+                    }
+                }
+            }
+            currentProjectile = null;
+        }
+
+        // Check player-enemy collisions
+        for (int p = 0; p < players.size(); p++) {
+            currentPlayer = players.get(p);
+            if (currentPlayer.isAlive()) {
+                broadPhase.forEachNear(currentPlayer, playerHitCheck);
+            }
+        }
+        currentPlayer = null;
+    }
+
+    // Bounces two nearby enemies off each other if they collide
+    private void checkEnemyPair(int i, int j) {
+        if (isColliding(enemies.get(i), enemies.get(j))) {
+            bounceEnemies(i, j);
+        }
+    }
+
+    // Keeps a nearby live enemy as the current projectile's hit if the projectile reached it first.
+    // Enemies hit at the same moment go to the lowest index, so the broad-phase's order doesn't matter
+    private void checkProjectileHit(int i) {
+        EnemyShip enemy = enemies.get(i);
+        double time = sweptHitTime(currentProjectile, enemy);
+        if (time >= 0 && enemy.isAlive()
+                && (firstHit < 0 || time < firstHitTime || time == firstHitTime && i < firstHit)) {
+            firstHit = i;
+            firstHitTime = time;
+        }
+    }
+
+    // Destroys a nearby enemy if it crashed into the current player,
+    // unless it was already destroyed earlier in the step
+    private void checkPlayerHit(int i) {
+        EnemyShip enemy = enemies.get(i);
+        if (!enemy.isAlive()) return;
+        if (isColliding(enemy, currentPlayer)) {
+            publish(GameEvents.ENEMY_KILLED, enemy.getX(), enemy.getY(), players.indexOf(currentPlayer), 0);
+
+            // Player loses 1 health
+            enemy.setAlive(false);
+            damagePlayer(currentPlayer);
+        }
+    }
+
+    // Bounces two colliding enemies off each other
+    private void bounceEnemies(int i, int j) {
+        enemies.get(i).handleCollision(enemies.get(j));
+    }
+
+    // Acts on a hit found by the parallel narrow-phase. A projectile's enemy hits come in the order
+    // along its path, and hitEnemy only acts on the first of them whose enemy is still alive
+    private void applyProjectileHit(int projectile, int target) {
+        if (target < 0) {
+            hitPlayer(projectiles.get(projectile), players.get(ParallelNarrowPhase.playerOf(target)));
+        } else {
+            hitEnemy(projectiles.get(projectile), enemies.get(target));
+        }
+    }
+
+    // Player loses 1 health from an enemy projectile
+    private void hitPlayer(Projectile projectile, PlayerShip player) {
+        damagePlayer(player);
+        projectile.setAlive(false);
+    }
+
+    // Destroys an enemy hit by a player projectile. An enemy or a projectile only counts once,
+    // so two shots at one enemy score a single kill
+    private void hitEnemy(Projectile projectile, EnemyShip enemy) {
+        if (!enemy.isAlive() || !projectile.isAlive()) return;
+        publish(GameEvents.ENEMY_KILLED, enemy.getX(), enemy.getY(), -1, 0);
+        enemy.setAlive(false);
+        projectile.setAlive(false);
+        kills++;
+    }
+
+    // Runs an exact collision test, counting it towards the tests for this step
+    private boolean isColliding(GameObject a, GameObject b) {
+        pairTests++;
+        return a.isColliding(b);
+    }
+
+    // Runs an exact collision test along the path a projectile took, counting it towards the tests for this step
+    private boolean isSweptColliding(Projectile projectile, GameObject target) {
+        pairTests++;
+        return projectile.isSweptColliding(target);
+    }
+
+    // How far through the step a projectile reached a target, or -1 if it didn't, counting the test
+    private double sweptHitTime(Projectile projectile, GameObject target) {
+        pairTests++;
+        return projectile.getSweptHitTime(target);
+    }
+
+    // Called every step to remove any unneeded objects
+    void cleanupObjects() {
+        // Remove dead enemies
+        enemies.removeIf(enemy -> {
+            if (!enemy.isAlive()) {
+                enemy.release();
+                return true;
+            }
+            // Remove enemy and reduce every player's health if they reached bottom of screen
+            if (enemy.getY() > HEIGHT) {
+                publish(GameEvents.ENEMY_ESCAPED, enemy.getX(), enemy.getY(), -1, 0);
+                for (PlayerShip player : players) {
+                    if (player.isAlive()) {
+                        damagePlayer(player);
+                    }
+                }
+                enemy.release();
+                return true;
+            }
+            return false;
+        });
+
+        // Remove dead projectiles
+        projectiles.removeIf(projectile -> {
+            if (!projectile.isAlive() ||
+                    projectile.getY() < 0 ||
+                    projectile.getY() > HEIGHT) {
+                projectilePool.free(projectile);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    // A player loses 1 health
+    private void damagePlayer(PlayerShip player) {
+        player.health--;
+        damageTaken++;
+        publish(GameEvents.PLAYER_HIT, player.getX(), player.getY(), players.indexOf(player), player.health);
+    }
+
+    // Publishes an event for this step, if anything reads them
+    private void publish(int type, double x, double y, int player, int value) {
+        if (events != null) {
+            events.publish(type, tick, x, y, player, value);
+        }
+    }
+
+    // Called when the player runs out of health
+    private void endGame() {
+        gameOver = true;
+
+        // Clear projectiles and enemies
+        projectiles.forEach(projectilePool::free);
+        projectiles.clear();
+        enemies.forEach(GameObject::release);
+        enemies.clear();
+
+        // Stop the players
+        for (PlayerShip player : players) {
+            player.stop();
+        }
+
+        publish(GameEvents.GAME_OVER, 0, 0, -1, 0);
+    }
+
+    /// Checkpoints, see Checkpoint for the format around the state
+    // A copy of the world as it is now that carries on by itself, e.g. to play out many futures from one moment
+    public World fork(BroadPhase broadPhase) {
+        World copy = new World(config, broadPhase, seed);
+        Checkpoint.restore(Checkpoint.save(this, null), copy);
+        return copy;
+    }
+
+    // Draws different random numbers from here on, so forks of one moment play out differently.
+    // The spawns left in the current pass through the wave script are drawn again too, as the timeline
+    // is compiled a whole pass ahead
+    public void reseed(long seed) {
+        random.setSeed(seed);
+        timeline = config.getWaves().compile(loop, config, random);
+    }
+
+    // Writes everything that decides how the game carries on; the listener, broad-phase and timings aren't kept
+    void writeState(ByteBuffer out) {
+        out.putLong(random.getState());
+        out.putLong(tick);
+        out.putLong(time);
+        out.putLong(loopStart);
+        out.putInt(loop);
+        out.putInt(nextSpawn);
+        out.putInt(wave);
+        out.put((byte) (gameOver ? 1 : 0));
+        out.putInt(kills);
+        out.putInt(damageTaken);
+        timeline.write(out);
+
+        store.write(out);
+        out.putInt(players.size());
+        for (int p = 0; p < players.size(); p++) {
+            players.get(p).write(out);
+            out.putInt(inputs[p]);
+        }
+        out.putInt(enemies.size());
+        for (EnemyShip enemy : enemies) {
+            enemy.write(out);
+        }
+        out.putInt(projectiles.size());
+        for (Projectile projectile : projectiles) {
+            projectile.write(out);
+        }
+        projectilePool.write(out);
+    }
+
+    // Replaces the whole state with one written by writeState from a world with the same config.
+    // Anything wrong with it is only found partway through, so check it on a scratch world first (see Checkpoint)
+    void readState(ByteBuffer in) {
+        random.setState(in.getLong());
+        tick = in.getLong();
+        time = in.getLong();
+        loopStart = in.getLong();
+        loop = in.getInt();
+        nextSpawn = in.getInt();
+        wave = in.getInt();
+        gameOver = in.get() != 0;
+        kills = in.getInt();
+        damageTaken = in.getInt();
+        timeline = SpawnTimeline.read(in);
+        if (nextSpawn < 0 || nextSpawn >= timeline.size()) {
+            throw new IllegalArgumentException("Bad next spawn " + nextSpawn);
+        }
+
+        store.read(in);
+        players.clear();
+        Arrays.fill(inputs, 0);
+        int playerCount = readCount(in, MAX_PLAYERS);
+        for (int p = 0; p < playerCount; p++) {
+            players.add(PlayerShip.read(store, in));
+            inputs[p] = in.getInt();
+        }
+        enemies.clear();
+        int enemyCount = readCount(in, in.remaining());
+        for (int i = 0; i < enemyCount; i++) {
+            enemies.add(EnemyShip.read(store, in));
+        }
+        projectiles.clear();
+        int projectileCount = readCount(in, in.remaining());
+        for (int i = 0; i < projectileCount; i++) {
+            projectiles.add(Projectile.read(store, in));
+        }
+        projectilePool.read(in);
+    }
+
+    private static int readCount(ByteBuffer in, int max) {
+        int count = in.getInt();
+        if (count < 0 || count > max) {
+            throw new IllegalArgumentException("Bad object count " + count);
+        }
+        return count;
+    }
+
+    // A hash of the whole simulation state, for checking that a replay stays in step with the recording
+    public long stateHash() {
+        long hash = mix(0xcbf29ce484222325L, tick);
+        hash = mix(hash, time);
+        hash = mix(hash, loopStart);
+        hash = mix(hash, (long) loop << 32 | nextSpawn);
+        for (PlayerShip player : players) {
+            hash = mix(hash, player.health);
+            hash = mix(hash, hashObject(player));
+        }
+        for (EnemyShip enemy : enemies) {
+            hash = mix(hash, hashObject(enemy));
+        }
+        for (Projectile projectile : projectiles) {
+            hash = mix(hash, hashObject(projectile));
+        }
+        return mix(hash, enemies.size() * 31L + projectiles.size());
+    }
+
+    private static long hashObject(GameObject object) {
+        long hash = mix(Double.doubleToLongBits(object.getX()), Double.doubleToLongBits(object.getY()));
+        hash = mix(hash, Double.doubleToLongBits(object.getVelocityX()));
+        hash = mix(hash, Double.doubleToLongBits(object.getVelocityY()));
+        return mix(hash, Double.doubleToLongBits(object.getRotation()));
+    }
+
+    // Folds a value into a running FNV-1a style hash
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    /// Input
+    public void setMovingLeft(boolean movingLeft) { setInputFlag(PlayerInput.LEFT, movingLeft); }
+    public void setMovingRight(boolean movingRight) { setInputFlag(PlayerInput.RIGHT, movingRight); }
+    public void setRotatingClockwise(boolean rotatingClockwise) {
+        setInputFlag(PlayerInput.ROTATE_CLOCKWISE, rotatingClockwise);
+    }
+    public void setRotatingCounterClockwise(boolean rotatingCounterClockwise) {
+        setInputFlag(PlayerInput.ROTATE_COUNTER_CLOCKWISE, rotatingCounterClockwise);
+    }
+
+    // Sets or clears one of the PlayerInput flags
+    public void setInputFlag(int flag, boolean on) {
+        inputs[0] = on ? inputs[0] | flag : inputs[0] & ~flag;
+    }
+
+    // The first player's PlayerInput flags the next step will use
+    public int getInput() { return inputs[0]; }
+    public void setInput(int input) { inputs[0] = input; }
+
+    // Any player's PlayerInput flags the next step will use
+    public int getInput(int player) { return inputs[player]; }
+    public void setInput(int player, int input) { inputs[player] = input; }
+
+    // Splits the collision tests of crowded steps across the pool's threads, or stops if it's null.
+    // The outcome of every step is exactly the same either way
+    public void setCollisionPool(ForkJoinPool pool) {
+        parallelNarrowPhase = pool == null ? null : new ParallelNarrowPhase(pool, broadPhase);
+    }
+
+    // The number of steps since the collision pool was set that were crowded enough to use it
+    public long getParallelCollisionSteps() {
+        return parallelNarrowPhase == null ? 0 : parallelNarrowPhase.getRuns();
+    }
+
+    // Getters and setters
+    // The first player's ship
+    public PlayerShip getPlayer() { return players.get(0); }
+    public List<PlayerShip> getPlayers() { return players; }
+    public List<EnemyShip> getEnemies() { return enemies; }
+    public List<Projectile> getProjectiles() { return projectiles; }
+    public EntityStore getStore() { return store; }
+    public ProjectilePool getProjectilePool() { return projectilePool; }
+    public GameConfig getConfig() { return config; }
+    public int getKills() { return kills; }
+    public int getDamageTaken() { return damageTaken; }
+    public int getScore() { return kills * SCORE_PER_KILL; }
+    public long getSeed() { return seed; }
+    public long getTick() { return tick; }
+    public long getTime() { return time; }
+    public long getStepNanos() { return stepNanos; }
+    public int getPairTests() { return pairTests; }
+    public long getPhaseNanos(StepPhase phase) { return phaseNanos[phase.ordinal()]; }
+    public boolean isProfiling() { return profiling; }
+    public void setProfiling(boolean profiling) { this.profiling = profiling; }
+    public boolean isGameOver() { return gameOver; }
+
+    // Publishes the world's events to the ring from now on, from whichever thread steps the world
+    public void setEvents(GameEvents events) { this.events = events; }
+}
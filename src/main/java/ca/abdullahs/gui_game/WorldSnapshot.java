@@ -0,0 +1,187 @@
+package ca.abdullahs.gui_game;
+
+import java.util.Arrays;
+
+/**
+ * A copy of everything drawn from a world at the end of a step, so it can be shown
+ * while the world itself moves on, possibly on another thread.
+ * Snapshots are reused: capture overwrites the previous contents without allocating once warmed up
+ */
+public class WorldSnapshot {
+    private static final int INITIAL_CAPACITY = 64;
+
+    // When the capture was made, by System.nanoTime, and the length of the world's steps
+    private long capturedAt;
+    private long stepNanos;
+
+    /// Game state
+    // The world's step count, which also tells readers whether they have seen this snapshot
+    private long tick;
+    private boolean gameOver;
+    private int health;
+    private int score;
+    private int wave;
+    private int enemyCount;
+    private int projectileCount;
+    private int pairTests;
+
+    /// Timing of the step that produced this snapshot, if it was measured
+    private long lastStepNanos = -1;
+    private final long[] phaseNanos = new long[StepPhase.values().length];
+
+    /// Per-object state, with the players first, then the enemies, then the projectiles
+    private int count;
+    private int[] slot = new int[INITIAL_CAPACITY];
+    private int[] sprite = new int[INITIAL_CAPACITY];
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private double[] prevX = new double[INITIAL_CAPACITY];
+    private double[] prevY = new double[INITIAL_CAPACITY];
+    private double[] rotation = new double[INITIAL_CAPACITY];
+    private double[] prevRotation = new double[INITIAL_CAPACITY];
+    private double[] width = new double[INITIAL_CAPACITY];
+    private double[] height = new double[INITIAL_CAPACITY];
+
+    // Copies the world's current state into this snapshot
+    public void capture(World world) {
+        capturedAt = System.nanoTime();
+        stepNanos = world.getStepNanos();
+        tick = world.getTick();
+        gameOver = world.isGameOver();
+        health = Math.max(world.getPlayer().getHealth(), 0);
+        score = world.getScore();
+        wave = world.getWave();
+        enemyCount = world.getEnemies().size();
+        projectileCount = world.getProjectiles().size();
+        pairTests = world.getPairTests();
+        lastStepNanos = -1;
+        for (StepPhase phase : StepPhase.values()) {
+            phaseNanos[phase.ordinal()] = world.isProfiling() ? world.getPhaseNanos(phase) : 0;
+        }
+
+        int objects = world.getPlayers().size() + enemyCount + projectileCount;
+        ensureCapacity(objects);
+        count = 0;
+        for (PlayerShip player : world.getPlayers()) {
+            // Players out of health leave the arena, though the last one stays on the game over screen
+            if (player.isAlive() || gameOver) {
+                add(player);
+            }
+        }
+        for (EnemyShip enemy : world.getEnemies()) {
+            add(enemy);
+        }
+        for (Projectile projectile : world.getProjectiles()) {
+            add(projectile);
+        }
+    }
+
+    private void add(GameObject object) {
+        // Only the rotation the sprite is drawn with is kept
+        add(object.slot, object.getSprite(), object.getX(), object.getY(), object.getPreviousX(),
+                object.getPreviousY(), object.getRenderRotation(1), object.getRenderRotation(0),
+                object.getWidth(), object.getHeight());
+    }
+
+    /// Filling a snapshot by hand, for state that didn't come from a local world (e.g. GameClient)
+    // Starts over with no objects and the given game state, captured now
+    void begin(long tick, long stepNanos, boolean gameOver, int health, int score, int wave) {
+        capturedAt = System.nanoTime();
+        this.stepNanos = stepNanos;
+        this.tick = tick;
+        this.gameOver = gameOver;
+        this.health = Math.max(health, 0);
+        this.score = score;
+        this.wave = wave;
+        enemyCount = 0;
+        projectileCount = 0;
+        pairTests = 0;
+        lastStepNanos = -1;
+        Arrays.fill(phaseNanos, 0);
+        count = 0;
+    }
+
+    // Adds an object after the ones before it, counting enemies and projectiles by their sprite
+    void add(int slot, int sprite, double x, double y, double prevX, double prevY,
+             double rotation, double prevRotation, double width, double height) {
+        ensureCapacity(count + 1);
+        int i = count++;
+        this.slot[i] = slot;
+        this.sprite[i] = sprite;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.prevX[i] = prevX;
+        this.prevY[i] = prevY;
+        this.rotation[i] = rotation;
+        this.prevRotation[i] = prevRotation;
+        this.width[i] = width;
+        this.height[i] = height;
+    }
+
+    // Counts the objects added by hand towards the enemy and projectile counts
+    void countObject(int sprite) {
+        if (sprite >= SpriteIds.ENEMY_SPRITE) {
+            enemyCount++;
+        } else if (sprite == SpriteIds.PROJECTILE_SPRITE) {
+            projectileCount++;
+        }
+    }
+
+    private void ensureCapacity(int objects) {
+        if (slot.length < objects) {
+            grow(Math.max(objects, slot.length * 2));
+        }
+    }
+
+    private void grow(int capacity) {
+        slot = Arrays.copyOf(slot, capacity);
+        sprite = Arrays.copyOf(sprite, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+        prevRotation = Arrays.copyOf(prevRotation, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+    }
+
+    // Notes how long the step behind this snapshot took, for the step metrics
+    void setLastStepNanos(long nanos) {
+        lastStepNanos = nanos;
+    }
+
+    // How far through the next step the world should be at the given time, from 0 to 1,
+    // for snapshots captured right after each step
+    public double alphaAt(long now) {
+        return Math.min(Math.max((double) (now - capturedAt) / stepNanos, 0), 1);
+    }
+
+    /// Objects, by their index in the snapshot
+    public int getCount() { return count; }
+    // The object's EntityStore slot, which stays the same for as long as the object is in the world
+    public int getSlot(int i) { return slot[i]; }
+    public int getSprite(int i) { return sprite[i]; }
+    public double getWidth(int i) { return width[i]; }
+    public double getHeight(int i) { return height[i]; }
+
+    // State blended between the last two steps, where alpha is how far through the next step the frame is
+    public double getRenderX(int i, double alpha) { return prevX[i] + (x[i] - prevX[i]) * alpha; }
+    public double getRenderY(int i, double alpha) { return prevY[i] + (y[i] - prevY[i]) * alpha; }
+    public double getRenderRotation(int i, double alpha) {
+        return prevRotation[i] + (rotation[i] - prevRotation[i]) * alpha;
+    }
+
+    /// Game state
+    public long getTick() { return tick; }
+    public boolean isGameOver() { return gameOver; }
+    public int getHealth() { return health; }
+    public int getScore() { return score; }
+    public int getWave() { return wave; }
+    public int getEnemyCount() { return enemyCount; }
+    public int getProjectileCount() { return projectileCount; }
+    public int getPairTests() { return pairTests; }
+    // How long the step took, or -1 if it wasn't measured
+    public long getLastStepNanos() { return lastStepNanos; }
+    public long getPhaseNanos(StepPhase phase) { return phaseNanos[phase.ordinal()]; }
+}
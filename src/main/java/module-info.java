@@ -1,6 +1,8 @@
 module ca.abdullahs.javafx {
     requires javafx.controls;
     requires javafx.fxml;
+    requires java.desktop;
+    requires jdk.management;
 
 
     opens ca.abdullahs.gui_game to javafx.fxml;
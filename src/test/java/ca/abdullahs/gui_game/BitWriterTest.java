@@ -0,0 +1,67 @@
+package ca.abdullahs.gui_game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BitWriterTest {
+    @Test
+    void readsBackWhatWasWritten() {
+        BitWriter out = new BitWriter(64);
+        out.write(5, 3);
+        out.writeBoolean(true);
+        out.write(0xABCDE, 20);
+        out.write(-1, 32);
+        out.write(-7 & 0x3ff, 10);
+        out.writeVarInt(0);
+        out.writeVarInt(15);
+        out.writeVarInt(16);
+        out.writeVarInt(Integer.MAX_VALUE);
+        out.writeBoolean(false);
+
+        BitReader in = new BitReader(64);
+        in.load(out.toBuffer());
+        assertEquals(5, in.read(3));
+        assertTrue(in.readBoolean());
+        assertEquals(0xABCDE, in.read(20));
+        assertEquals(-1, in.read(32));
+        assertEquals(-7, in.readSigned(10));
+        assertEquals(0, in.readVarInt());
+        assertEquals(15, in.readVarInt());
+        assertEquals(16, in.readVarInt());
+        assertEquals(Integer.MAX_VALUE, in.readVarInt());
+        assertFalse(in.readBoolean());
+        // Only the padding of the last byte is left
+        assertTrue(in.getRemainingBits() < 8);
+    }
+
+    @Test
+    void rewindTakesBackARecord() {
+        BitWriter out = new BitWriter(4);
+        out.write(3, 2);
+        int mark = out.getBitPosition();
+        out.write(0xFFFF, 16);
+        out.rewind(mark);
+        out.write(1, 2);
+        assertEquals(1, out.getByteCount());
+
+        BitReader in = new BitReader(4);
+        in.load(out.toBuffer());
+        assertEquals(3, in.read(2));
+        assertEquals(1, in.read(2));
+    }
+
+    @Test
+    void rejectsOverrunningThePacket() {
+        BitWriter out = new BitWriter(1);
+        out.write(0, 6);
+        assertThrows(IllegalStateException.class, () -> out.write(0, 3));
+
+        BitReader in = new BitReader(1);
+        in.load(out.toBuffer());
+        assertThrows(IllegalArgumentException.class, () -> in.read(9));
+    }
+}
@@ -0,0 +1,127 @@
+package ca.abdullahs.gui_game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CheckpointTest {
+    @TempDir
+    Path directory;
+
+    // A world some way into a game, with enemies, projectiles and damage to save
+    private static World playedWorld(long seed, int ticks) {
+        World world = new World(GameConfig.DEFAULT, new UniformGridBroadPhase(), seed);
+        play(world, new ScriptedBot(), ticks);
+        return world;
+    }
+
+    private static void play(World world, ScriptedBot bot, int ticks) {
+        for (int i = 0; i < ticks && !world.isGameOver(); i++) {
+            world.setInput(bot.decide(world));
+            world.step();
+        }
+    }
+
+    @Test
+    void restoredWorldHasTheSameState() {
+        World world = playedWorld(7, 900);
+        World restored = Checkpoint.restore(Checkpoint.save(world, null), new UniformGridBroadPhase());
+        assertEquals(world.stateHash(), restored.stateHash());
+        assertEquals(world.getTick(), restored.getTick());
+
+        // And carries on the same way
+        play(world, new ScriptedBot(), 600);
+        play(restored, new ScriptedBot(), 600);
+        assertEquals(world.stateHash(), restored.stateHash());
+    }
+
+    @Test
+    void restoresThroughAFile() throws IOException {
+        World world = playedWorld(3, 600);
+        Path file = directory.resolve("world.checkpoint");
+        Checkpoint.write(Checkpoint.save(world, null), file);
+
+        World restored = Checkpoint.restore(Checkpoint.read(file), new BruteForceBroadPhase());
+        assertEquals(world.stateHash(), restored.stateHash());
+    }
+
+    @Test
+    void rewindsAWorld() {
+        World world = playedWorld(11, 300);
+        long hash = world.stateHash();
+        ByteBuffer checkpoint = Checkpoint.save(world, ByteBuffer.allocate(16));
+
+        play(world, new ScriptedBot(), 300);
+        Checkpoint.restore(checkpoint, world);
+        assertEquals(hash, world.stateHash());
+    }
+
+    @Test
+    void rejectsAnotherGamesSettings() {
+        ByteBuffer checkpoint = Checkpoint.save(playedWorld(1, 60), null);
+        World other = new World(GameConfig.DEFAULT.withTickRate(120), new UniformGridBroadPhase(), 1);
+        assertThrows(IllegalArgumentException.class, () -> Checkpoint.restore(checkpoint, other));
+    }
+
+    @Test
+    void rejectsWhatIsntACheckpoint() {
+        ByteBuffer checkpoint = Checkpoint.save(playedWorld(1, 60), null);
+        checkpoint.putInt(0, 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> Checkpoint.restore(checkpoint, new UniformGridBroadPhase()));
+    }
+
+    @Test
+    void restoredObjectsClaimTheirSlots() {
+        World restored = Checkpoint.restore(Checkpoint.save(playedWorld(5, 600), null), new UniformGridBroadPhase());
+        EntityStore store = restored.getStore();
+        // A second object in any restored object's slot would be rejected
+        assertThrows(IllegalArgumentException.class, () -> store.claimSlot(restored.getPlayer().slot));
+        for (EnemyShip enemy : restored.getEnemies()) {
+            assertThrows(IllegalArgumentException.class, () -> store.claimSlot(enemy.slot));
+        }
+        assertThrows(IllegalArgumentException.class, () -> store.claimSlot(-1));
+        assertThrows(IllegalArgumentException.class, () -> store.claimSlot(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void aTruncatedCheckpointLeavesTheWorldAsItWas() {
+        World world = playedWorld(13, 600);
+        ByteBuffer checkpoint = Checkpoint.save(world, null);
+        play(world, new ScriptedBot(), 60);
+        long hash = world.stateHash();
+
+        // Cut short anywhere from the header to the last byte
+        for (int length = 0; length < checkpoint.limit(); length += 97) {
+            ByteBuffer truncated = checkpoint.duplicate().limit(length);
+            assertThrows(IllegalArgumentException.class, () -> Checkpoint.restore(truncated, world));
+            assertEquals(hash, world.stateHash());
+            assertThrows(IllegalArgumentException.class,
+                    () -> Checkpoint.restore(truncated.rewind(), new UniformGridBroadPhase()));
+        }
+    }
+
+    @Test
+    void rejectsAnEnemyColourThereIsNoSpriteFor() {
+        World world = playedWorld(17, 600);
+        assertTrue(world.getEnemies().size() > 0);
+        ByteBuffer checkpoint = Checkpoint.save(world, null);
+
+        // The last enemy's record is followed by the projectiles and the parked projectiles,
+        // and its colour follows its slot and speed
+        int pool = Integer.BYTES + world.getProjectilePool().getFreeCount() * 5 + 2 * Long.BYTES;
+        int projectiles = Integer.BYTES + world.getProjectiles().size() * 5;
+        int colour = checkpoint.limit() - pool - projectiles - 30 + Integer.BYTES + Double.BYTES;
+        checkpoint.put(colour, (byte) EnemyShip.COLOURS);
+
+        long hash = world.stateHash();
+        assertThrows(IllegalArgumentException.class, () -> Checkpoint.restore(checkpoint.duplicate(), world));
+        assertEquals(hash, world.stateHash());
+    }
+}
@@ -0,0 +1,99 @@
+package ca.abdullahs.gui_game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GameEventsTest {
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertEquals(1, new GameEvents(1).getCapacity());
+        assertEquals(8, new GameEvents(5).getCapacity());
+        assertEquals(8, new GameEvents(8).getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new GameEvents(0));
+    }
+
+    @Test
+    void handsOverEventsInOrder() {
+        GameEvents events = new GameEvents(8);
+        events.publish(GameEvents.SHOT_FIRED, 1, 10, 20, 0, 0);
+        GameEvents.Cursor cursor = events.newCursor();
+        events.publish(GameEvents.ENEMY_KILLED, 2, 30.5, 40.5, -1, 7);
+        events.publish(GameEvents.PLAYER_HIT, 3, 50, 60, 1, 2);
+
+        List<String> read = new ArrayList<>();
+        int handled = cursor.poll((type, tick, x, y, player, value) ->
+                read.add(type + " " + tick + " " + x + " " + y + " " + player + " " + value));
+        // A new cursor starts from the next event published
+        assertEquals(2, handled);
+        assertEquals(List.of("1 2 30.5 40.5 -1 7", "2 3 50.0 60.0 1 2"), read);
+        assertEquals(0, cursor.poll((type, tick, x, y, player, value) -> {}));
+        assertEquals(0, cursor.getLost());
+    }
+
+    @Test
+    void cursorsReadIndependently() {
+        GameEvents events = new GameEvents(4);
+        GameEvents.Cursor fast = events.newCursor();
+        GameEvents.Cursor slow = events.newCursor();
+        for (int i = 0; i < 3; i++) {
+            events.publish(GameEvents.SHOT_FIRED, i, 0, 0, 0, i);
+            assertEquals(1, fast.poll((type, tick, x, y, player, value) -> {}));
+        }
+        assertEquals(3, slow.getBacklog());
+        assertEquals(3, slow.poll((type, tick, x, y, player, value) -> {}));
+        assertEquals(0, fast.getLost() + slow.getLost());
+    }
+
+    @Test
+    void countsEventsLostByFallingARingBehind() {
+        GameEvents events = new GameEvents(8);
+        GameEvents.Cursor cursor = events.newCursor();
+        for (int i = 0; i < 20; i++) {
+            events.publish(GameEvents.SHOT_FIRED, i, 0, 0, 0, i);
+        }
+
+        List<Integer> read = new ArrayList<>();
+        cursor.poll((type, tick, x, y, player, value) -> read.add(value));
+        // Only the newest ring's worth is left
+        assertEquals(List.of(12, 13, 14, 15, 16, 17, 18, 19), read);
+        assertEquals(12, cursor.getLost());
+        assertEquals(0, cursor.getBacklog());
+    }
+
+    @Test
+    void readerRacingThePublisherMissesNothingUncounted() throws InterruptedException {
+        GameEvents events = new GameEvents(64);
+        GameEvents.Cursor cursor = events.newCursor();
+        int published = 1_000_000;
+        Thread publisher = new Thread(() -> {
+            for (int i = 0; i < published; i++) {
+                events.publish(GameEvents.SHOT_FIRED, i, i, -i, 0, i);
+            }
+        });
+
+        long[] handled = {0};
+        int[] last = {-1};
+        boolean[] torn = {false};
+        GameEvents.Handler handler = (type, tick, x, y, player, value) -> {
+            // Every field of an event comes from the same publish, and events come in order
+            torn[0] |= tick != value || x != value || y != -value || value <= last[0];
+            last[0] = value;
+            handled[0]++;
+        };
+        publisher.start();
+        while (publisher.isAlive()) {
+            cursor.poll(handler);
+        }
+        publisher.join();
+        cursor.poll(handler);
+
+        assertFalse(torn[0], "An event was read torn or out of order");
+        assertEquals(published - 1, last[0]);
+        assertEquals(published, handled[0] + cursor.getLost());
+    }
+}
@@ -0,0 +1,51 @@
+package ca.abdullahs.gui_game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import org.junit.jupiter.api.Test;
+
+class GameServerTest {
+    // How long a client waits to be let in
+    private static final long JOIN_TIMEOUT_NANOS = 5_000_000_000L;
+
+    // Steps the clients until the last one has joined or been turned away
+    private static void join(GameClient joining, GameClient... others) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + JOIN_TIMEOUT_NANOS;
+        while (!joining.isJoined() && joining.getError() == null && System.nanoTime() < deadline) {
+            joining.step();
+            joining.poll();
+            for (GameClient other : others) {
+                other.step();
+                other.poll();
+            }
+            Thread.sleep(5);
+        }
+        assertNull(joining.getError());
+        assertTrue(joining.isJoined());
+    }
+
+    @Test
+    void playersLeavingAndRejoiningDontFillTheServer() throws IOException, InterruptedException {
+        GameServer server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                GameConfig.DEFAULT, 1);
+        server.start();
+        try (GameClient host = new GameClient(server.getLocalAddress())) {
+            join(host);
+            assertEquals(0, host.getPlayer());
+
+            // More comings and goings than there are player numbers
+            for (int i = 0; i < World.MAX_PLAYERS * 2; i++) {
+                try (GameClient guest = new GameClient(server.getLocalAddress())) {
+                    join(guest, host);
+                }
+            }
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ca.abdullahs.gui_game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class NetStateTest {
+    // Room for a whole field, which the server would split across packets
+    private static final int PACKET_BYTES = 64 * 1024;
+
+    @Test
+    void deltaRebuildsTheState() {
+        NetState baseline = new NetState();
+        baseline.set(0, 1, 100, 200, 0, 30, 30);
+        baseline.set(1, 2, -50, 10, 719, 20, 20);
+        baseline.set(2, 3, 400, 300, 360, 10, 10);
+        baseline.set(3, 3, 0, 0, 0, 10, 10);
+        baseline.set(5, 4, 5, 5, 5, 5, 5);
+
+        NetState state = new NetState();
+        state.copyFrom(baseline);
+        state.set(0, 1, 103, 190, 2, 30, 30); // Small deltas
+        state.set(1, 2, 5000, -3000, 1, 20, 20); // Large moves, and turning past 0
+        state.remove(2);
+        state.set(3, 4, 0, 0, 0, 12, 10); // A different object in the slot
+        state.set(300, 1, 7, 8, 9, 10, 11); // A new object past the baseline's end
+
+        assertSameState(state, roundTrip(baseline, state));
+    }
+
+    @Test
+    void sameStateSendsNoRecords() {
+        NetState baseline = new NetState();
+        baseline.set(0, 1, 100, 200, 0, 30, 30);
+        NetState state = new NetState();
+        state.copyFrom(baseline);
+
+        BitWriter out = new BitWriter(PACKET_BYTES);
+        writeDelta(baseline, state, out);
+        assertEquals(1, out.getBitPosition());
+    }
+
+    @Test
+    void deltaOfAWorldFromAnEarlierTick() {
+        World world = new World(GameConfig.DEFAULT, new UniformGridBroadPhase(), 1);
+        NetState baseline = capture(world);
+        ScriptedBot bot = new ScriptedBot();
+        for (int i = 0; i < 600; i++) {
+            world.setInput(bot.decide(world));
+            world.step();
+        }
+        NetState state = capture(world);
+
+        assertSameState(state, roundTrip(baseline, state));
+    }
+
+    private static NetState capture(World world) {
+        NetState state = new NetState();
+        world.getPlayers().forEach(state::set);
+        world.getEnemies().forEach(state::set);
+        world.getProjectiles().forEach(state::set);
+        return state;
+    }
+
+    // Sends the state as changes to the baseline and applies them to a copy of it
+    private static NetState roundTrip(NetState baseline, NetState state) {
+        BitWriter out = new BitWriter(PACKET_BYTES);
+        writeDelta(baseline, state, out);
+
+        BitReader in = new BitReader(PACKET_BYTES);
+        in.load(out.toBuffer());
+        NetState received = new NetState();
+        received.copyFrom(baseline);
+        // Applies every record, up to the end marker
+        while (received.readRecord(in) >= 0) {
+        }
+        // Only the padding of the last byte is left
+        assertTrue(in.getRemainingBits() < 8);
+        return received;
+    }
+
+    private static void writeDelta(NetState baseline, NetState state, BitWriter out) {
+        for (int slot = 0; slot < Math.max(baseline.limit, state.limit); slot++) {
+            if (!state.matches(baseline, slot)) {
+                state.writeRecord(baseline, slot, out);
+            }
+        }
+        NetState.writeEnd(out);
+    }
+
+    private static void assertSameState(NetState expected, NetState actual) {
+        for (int slot = 0; slot < Math.max(expected.limit, actual.limit); slot++) {
+            assertTrue(actual.matches(expected, slot), "Slot " + slot + " differs");
+        }
+    }
+}
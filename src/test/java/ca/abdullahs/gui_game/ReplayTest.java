@@ -0,0 +1,67 @@
+package ca.abdullahs.gui_game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+class ReplayTest {
+    // Records the bot playing up to the given number of steps of the world's game, which stops at game over
+    private static byte[] record(World world, int ticks) throws IOException {
+        ScriptedBot bot = new ScriptedBot();
+        ByteArrayOutputStream recording = new ByteArrayOutputStream();
+        try (InputRecorder recorder = new InputRecorder(recording, world)) {
+            for (int i = 0; i < ticks; i++) {
+                world.setInput(bot.decide(world));
+                recorder.step(world);
+            }
+        }
+        return recording.toByteArray();
+    }
+
+    @Test
+    void replayMatchesTheRecordedGame() throws IOException {
+        World world = new World(GameConfig.DEFAULT, new UniformGridBroadPhase(), 42);
+        Replay replay = Replay.play(new ByteArrayInputStream(record(world, 1800)));
+        assertTrue(replay.matched());
+        assertEquals(world.getTick(), replay.getTicks());
+    }
+
+    @Test
+    void replaysAWaveScriptOverSixtyFourKilobytes() throws IOException {
+        StringBuilder source = new StringBuilder("loop_speedup 0.2\n");
+        for (int i = 0; source.length() <= 70_000; i++) {
+            source.append("wave count=").append(3 + i % 5)
+                    .append(" formation=line colour=random speed=1.0..1.4 shooters=0.5 interval=0.2 pause=0.5\n");
+        }
+        GameConfig config = GameConfig.DEFAULT.withWaves(WaveScript.parse(source.toString()));
+
+        World world = new World(config, new UniformGridBroadPhase(), 9);
+        Replay replay = Replay.play(new ByteArrayInputStream(record(world, 600)));
+        assertTrue(replay.matched());
+        assertEquals(world.getTick(), replay.getTicks());
+    }
+
+    @Test
+    void findsWhereAReplayDiverges() throws IOException {
+        World world = new World(GameConfig.DEFAULT, new UniformGridBroadPhase(), 42);
+        byte[] recording = record(world, 600);
+        // Flip a bit of the hash recorded for tick 300, with the 5 byte step records after the header
+        int header = recording.length - (int) world.getTick() * 5;
+        recording[header + 299 * 5 + 1] ^= 1;
+
+        Replay replay = Replay.play(new ByteArrayInputStream(recording));
+        assertFalse(replay.matched());
+        assertEquals(300, replay.getFirstMismatch());
+    }
+
+    @Test
+    void rejectsWhatIsntARecording() {
+        assertThrows(IOException.class, () -> Replay.play(new ByteArrayInputStream(new byte[16])));
+    }
+}
@@ -0,0 +1,177 @@
+package ca.abdullahs.gui_game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SessionLogTest {
+    private static final int COUNT_OFFSET = 16;
+
+    @TempDir
+    Path directory;
+
+    private static Session session(int i) {
+        return new Session(1_000 + i, i, 60L * i, 60, (i * 37 % 101) * 100, i * 37 % 101, i % 5, Session.BOT);
+    }
+
+    // A log of the given number of sessions, closed
+    private Path logOf(int sessions) throws IOException {
+        Path file = directory.resolve("sessions.log");
+        try (SessionLog log = new SessionLog(file, 5)) {
+            for (int i = 0; i < sessions; i++) {
+                log.append(session(i));
+            }
+        }
+        return file;
+    }
+
+    // The best sessions of the first count, worked out the slow way
+    private static List<Session> best(int count, int limit) {
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sessions.add(session(i));
+        }
+        sessions.sort(Session.BEST_FIRST);
+        return sessions.subList(0, limit);
+    }
+
+    private static void assertSame(Session expected, Session actual) {
+        assertEquals(expected.getEndedAt(), actual.getEndedAt());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getTicks(), actual.getTicks());
+        assertEquals(expected.getTickRate(), actual.getTickRate());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.getKills(), actual.getKills());
+        assertEquals(expected.getDamageTaken(), actual.getDamageTaken());
+        assertEquals(expected.getPlayer(), actual.getPlayer());
+    }
+
+    private static void assertSame(List<Session> expected, List<Session> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    private static void putCount(Path file, long count) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, count), COUNT_OFFSET);
+        }
+    }
+
+    private static void putByte(Path file, long position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) value}), position);
+        }
+    }
+
+    private static long position(long index) {
+        return SessionLog.HEADER_SIZE + index * SessionLog.RECORD_SIZE;
+    }
+
+    @Test
+    void readsBackWhatWasAppended() throws IOException {
+        // More than the initial capacity, so the file grows
+        Path file = logOf(3000);
+        try (SessionLog log = new SessionLog(file, 5)) {
+            assertEquals(3000, log.getCount());
+            assertEquals(0, log.getRecovered());
+            assertSame(session(0), log.read(0));
+            assertSame(session(2999), log.read(2999));
+            assertSame(best(3000, 5), log.getTopSessions());
+            assertThrows(IndexOutOfBoundsException.class, () -> log.read(3000));
+        }
+    }
+
+    @Test
+    void keepsRecordsWrittenPastTheCount() throws IOException {
+        // As if the process died between writing records and updating the count
+        Path file = logOf(100);
+        putCount(file, 97);
+        try (SessionLog log = new SessionLog(file, 5)) {
+            assertEquals(100, log.getCount());
+            assertEquals(3, log.getRecovered());
+            assertSame(session(99), log.read(99));
+        }
+        try (SessionLog log = new SessionLog(file, 5)) {
+            assertEquals(0, log.getRecovered());
+        }
+    }
+
+    @Test
+    void dropsATornLastRecord() throws IOException {
+        Path file = logOf(100);
+        putByte(file, position(99) + 5, 0x5a);
+        try (SessionLog log = new SessionLog(file, 5)) {
+            assertEquals(99, log.getCount());
+            assertEquals(1, log.getRecovered());
+            assertSame(best(99, 5), log.getTopSessions());
+
+            // The next game takes the torn record's place
+            log.append(session(1000));
+            assertSame(session(1000), log.read(99));
+        }
+        try (SessionLog log = new SessionLog(file, 5)) {
+            assertEquals(100, log.getCount());
+            assertEquals(0, log.getRecovered());
+        }
+    }
+
+    @Test
+    void dropsATornRecordPastTheCount() throws IOException {
+        Path file = logOf(100);
+        putCount(file, 98);
+        putByte(file, position(99) + SessionLog.RECORD_SIZE - 1, 0x5a);
+        try (SessionLog log = new SessionLog(file, 5)) {
+            assertEquals(99, log.getCount());
+            assertEquals(1, log.getRecovered());
+        }
+    }
+
+    @Test
+    void rejectsWhatIsntASessionLog() throws IOException {
+        Path file = directory.resolve("other.log");
+        Files.write(file, new byte[SessionLog.HEADER_SIZE]);
+        assertThrows(IllegalArgumentException.class, () -> new SessionLog(file, 5));
+    }
+
+    @Test
+    void onlyOneLogOpenAtATime() throws IOException {
+        Path file = logOf(1);
+        try (SessionLog log = new SessionLog(file, 5)) {
+            assertThrows(IllegalStateException.class, () -> new SessionLog(file, 5));
+        }
+        try (SessionLog log = new SessionLog(file, 5)) {
+            assertEquals(1, log.getCount());
+        }
+    }
+
+    @Test
+    void historyWritesOnItsOwnThread() throws IOException {
+        Path file = directory.resolve("history.log");
+        SessionHistory history = new SessionHistory(file, 5);
+        for (int i = 0; i < 50; i++) {
+            history.add(session(i));
+        }
+        history.close();
+        assertEquals(50, history.getCount());
+        assertSame(best(50, 5), history.getTopSessions());
+        // A game just finished is shown among them before it's written
+        assertSame(best(51, 3), history.getTopSessionsWith(session(50), 3));
+
+        try (SessionLog log = new SessionLog(file, 5)) {
+            assertEquals(50, log.getCount());
+            assertSame(best(50, 5), log.getTopSessions());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ca.abdullahs.gui_game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class WaveScriptTest {
+    private static final String WAVE = "wave count=3 speed=1.0..1.5 pause=1\n";
+
+    @Test
+    void parsesTheLoopSpeedup() {
+        assertEquals(0.25, WaveScript.parse("loop_speedup 0.25\n" + WAVE).getLoopSpeedup());
+        assertEquals(0, WaveScript.parse(WAVE).getLoopSpeedup());
+    }
+
+    @Test
+    void rejectsLoopSpeedupsThatStallOrBreakTheGame() {
+        for (String speedup : new String[] {"-0.5", "NaN", "Infinity"}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> WaveScript.parse("loop_speedup " + speedup + "\n" + WAVE), speedup);
+        }
+    }
+
+    @Test
+    void rejectsOutOfRangeWaves() {
+        for (String wave : new String[] {"count=0", "speed=-1", "speed=1..NaN", "speed=Infinity", "shooters=1.5", "interval=-1"}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> WaveScript.parse("wave " + wave + " pause=1\n"), wave);
+        }
+    }
+}
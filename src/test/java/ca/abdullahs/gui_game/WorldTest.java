@@ -0,0 +1,127 @@
+package ca.abdullahs.gui_game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class WorldTest {
+    // Enemies only arrive at the top of the field, one a minute, and never shoot,
+    // so the objects a test places are the only ones that meet
+    private static final GameConfig QUIET = GameConfig.DEFAULT.withWaves(
+            WaveScript.parse("wave count=1 shooters=0 pause=60\n"));
+
+    private static World quietWorld() {
+        return quietWorld(QUIET);
+    }
+
+    private static World quietWorld(GameConfig config) {
+        return new World(config, new UniformGridBroadPhase(), 1);
+    }
+
+    // Places a still enemy
+    private static EnemyShip addEnemy(World world, double x, double y) {
+        EnemyShip enemy = new EnemyShip(world.getStore(), world.getConfig(), x, y, 0, 0, 0, false);
+        world.getEnemies().add(enemy);
+        return enemy;
+    }
+
+    // Places a player shot heading straight up
+    private static Projectile addShot(World world, double x, double y) {
+        Projectile projectile = world.getProjectilePool().obtain(x, y, 0, 5, true);
+        world.getProjectiles().add(projectile);
+        return projectile;
+    }
+
+    @Test
+    void twoShotsAtOneEnemyScoreOneKill() {
+        World world = quietWorld();
+        EnemyShip enemy = addEnemy(world, 400, 300);
+        addShot(world, 400, 310);
+        addShot(world, 400, 312);
+
+        world.step();
+        assertFalse(enemy.isAlive());
+        assertEquals(1, world.getKills());
+        assertEquals(100, world.getScore());
+        // The second shot carries on
+        assertEquals(1, world.getProjectiles().size());
+    }
+
+    @Test
+    void anEnemyShotDownDoesntDamageThePlayer() {
+        World world = quietWorld();
+        PlayerShip player = world.getPlayer();
+        addEnemy(world, player.getX(), player.getY());
+        addShot(world, player.getX(), player.getY());
+
+        world.step();
+        assertEquals(1, world.getKills());
+        assertEquals(0, world.getDamageTaken());
+        assertEquals(PlayerShip.MAX_HEALTH, player.getHealth());
+    }
+
+    @Test
+    void aShotStopsAtTheFirstEnemyAlongItsPath() {
+        // At 10 steps a second a shot moves 42 pixels a step, past both enemies
+        World world = quietWorld(QUIET.withTickRate(10));
+        EnemyShip far = addEnemy(world, 400, 320);
+        EnemyShip near = addEnemy(world, 400, 340);
+        addShot(world, 400, 380);
+
+        world.step();
+        assertFalse(near.isAlive());
+        assertTrue(far.isAlive());
+        assertEquals(1, world.getKills());
+    }
+
+    @Test
+    void threadedCollisionsStopShotsTheSameWay() {
+        World sequential = shotColumn(null);
+        World parallel = shotColumn(new ForkJoinPool(4));
+        // The second shot reaches the near enemy first too, but it's gone by then, so it carries on to the far one
+        assertEquals(2, sequential.getKills());
+        assertEquals(2, parallel.getKills());
+        assertEquals(sequential.stateHash(), parallel.stateHash());
+    }
+
+    // Two shots up a column of two enemies at a low tick rate, among enough stray shots to test on several threads
+    private static World shotColumn(ForkJoinPool pool) {
+        World world = quietWorld(QUIET.withTickRate(10));
+        world.setCollisionPool(pool);
+        addEnemy(world, 400, 320);
+        addEnemy(world, 400, 340);
+        addShot(world, 400, 380);
+        addShot(world, 400, 385);
+        for (int i = 0; i < 1100; i++) {
+            addShot(world, 20 + i % 40 * 8, 150);
+        }
+
+        world.step();
+        return world;
+    }
+
+    @Test
+    void aRemovedPlayersShipIsReusedInPlace() {
+        World world = quietWorld();
+        int player = world.addPlayer();
+        PlayerShip ship = world.getPlayers().get(player);
+        double startX = ship.getX();
+        int slot = ship.slot;
+        world.setInput(player, PlayerInput.LEFT);
+        world.step();
+        world.removePlayer(player);
+        world.step();
+        assertFalse(ship.isAlive());
+
+        world.reusePlayer(player);
+        assertEquals(2, world.getPlayers().size());
+        assertTrue(ship.isAlive());
+        assertEquals(slot, ship.slot);
+        assertEquals(startX, ship.getX());
+        assertEquals(PlayerShip.MAX_HEALTH, ship.getHealth());
+        assertEquals(0, world.getInput(player));
+    }
+}